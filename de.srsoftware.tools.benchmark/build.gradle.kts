@@ -0,0 +1,25 @@
+description = "SRSoftware Tools : Benchmarks"
+
+dependencies {
+    implementation(project(":de.srsoftware.tools.http"))
+    implementation(project(":de.srsoftware.tools.jdbc"))
+
+    implementation("org.openjdk.jmh:jmh-core:1.37")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
+    runtimeOnly("org.xerial:sqlite-jdbc:3.47.1.0")
+}
+
+// run with ./gradlew :de.srsoftware.tools.benchmark:jmh [-Pinclude=RegEx]
+// results are written in JSON format to build/reports/jmh/results.json
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks"
+    dependsOn("classes")
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val results = layout.buildDirectory.file("reports/jmh/results.json").get().asFile
+    doFirst { results.parentFile.mkdirs() }
+    args("-rf", "json", "-rff", results.absolutePath)
+    if (project.hasProperty("include")) args(project.property("include").toString())
+}
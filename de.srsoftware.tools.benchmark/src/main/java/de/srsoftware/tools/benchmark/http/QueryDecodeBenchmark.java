@@ -0,0 +1,86 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.benchmark.http;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.srsoftware.tools.Query;
+import java.net.URLDecoder;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * measures decoding of url-encoded form payloads, compared with the former split/regex based implementation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryDecodeBenchmark {
+	@Param({"login", "search", "nested", "large"})
+	private String payload;
+
+	private String query;
+
+	@Setup
+	public void setup() {
+		query = switch (payload) {
+			case "login" -> "user=jdoe&password=s3cr3t%21&remember=on";
+			case "search" -> "q=caf%C3%A9+au+lait&lang=de&page=2&sort=relevance&filter=open&filter=nearby&from=2025-01-01&to=2025-12-31";
+			case "nested" -> "name=Jane+Doe&address[street]=Main+Street+1&address[city]=Springfield&address[zip]=12345&phones[home]=%2B49+341+123&phones[work]=%2B49+341+456&tags[]=a&tags[]=b";
+			default -> {
+				var sb = new StringBuilder();
+				for (int i = 0; i < 100; i++) sb.append(i == 0 ? "" : "&").append("field").append(i).append("=value+number+").append(i).append("%21");
+				yield sb.toString();
+			}
+		};
+	}
+
+	@Benchmark
+	public Map<String, Object> decode() {
+		return Query.decode(query);
+	}
+
+	@Benchmark
+	public Map<String, Object> decodeRegex() {
+		return legacyDecode(query);
+	}
+
+	/** the former implementation, kept as baseline **/
+	private static Map<String, Object> legacyDecode(String query) {
+		var map = new LinkedHashMap<String, Object>();
+		for (var part : query.split("&")) {
+			var keyVal = part.split("=", 2);
+			legacyInsert(map, URLDecoder.decode(keyVal[0], UTF_8), URLDecoder.decode(keyVal[1], UTF_8));
+		}
+		return map;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void legacyInsert(Map<String, Object> map, String key, String value) {
+		var parts = key.split("\\[|]\\[|]");
+		Map<String, Object> current = map;
+		for (int i = 0; i < parts.length; i++) {
+			if (parts[i].isEmpty()) continue;
+			if (i == parts.length - 1) {
+				Object existing = current.get(parts[i]);
+				if (existing == null) {
+					current.put(parts[i], value);
+				} else if (existing instanceof List) {
+					((List<String>) existing).add(value);
+				} else {
+					current.put(parts[i], new ArrayList<>(List.of((String) existing, value)));
+				}
+			} else {
+				Object next = current.get(parts[i]);
+				if (!(next instanceof Map)) {
+					next = new LinkedHashMap<String, Object>();
+					current.put(parts[i], next);
+				}
+				current = (Map<String, Object>) next;
+			}
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.benchmark.jdbc;
+
+import static de.srsoftware.tools.jdbc.Condition.*;
+import static de.srsoftware.tools.jdbc.Query.MARK;
+
+import de.srsoftware.tools.jdbc.Condition;
+import de.srsoftware.tools.jdbc.Query;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * measures the cost of building and rendering the sql of the query builders, without database access.
+ * Select and delete queries are rendered via toString(), which also substitutes the placeholder values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+	private Query.SelectQuery select;
+
+	@Setup
+	public void setup() {
+		select = Query  //
+			.select("id", "title", "year")
+			.from("movies")
+			.leftJoin("id", "cast", "movie")
+			.where("year", notIn(1999, 1998))
+			.where("year", moreThan(1990))
+			.where(or(field("title", like("%Space%")), field("genre", in("scifi", "comedy"))))
+			.sort("title ASC", "year DESC")
+			.limit(5);
+	}
+
+	@Benchmark
+	public String selectCompile() {
+		return select.toString();
+	}
+
+	@Benchmark
+	public String selectBuildAndCompile() {
+		return Query  //
+			.select("id", "title", "year")
+			.from("movies")
+			.where("year", moreThan(1990))
+			.where("title", like("%Space%"))
+			.sort("title ASC")
+			.toString();
+	}
+
+	@Benchmark
+	public String insert() {
+		return Query.insertInto("movies", "id", "year", "title").sql();
+	}
+
+	@Benchmark
+	public String update() {
+		return Query.update("movies").set("title", "year").where("id", equal(MARK)).sql();
+	}
+
+	@Benchmark
+	public String delete() {
+		return Query.delete().from("movies").where("id", in(1, 2, 3)).toString();
+	}
+
+	@Benchmark
+	public Condition conditionTree() {
+		return and(field("year", moreThan(1990)), or(field("title", like("%Space%")), not(field("genre", isNull()))));
+	}
+}
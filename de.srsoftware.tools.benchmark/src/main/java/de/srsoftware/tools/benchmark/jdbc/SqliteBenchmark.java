@@ -0,0 +1,119 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.benchmark.jdbc;
+
+import static de.srsoftware.tools.jdbc.Condition.equal;
+import static de.srsoftware.tools.jdbc.Condition.in;
+import static de.srsoftware.tools.jdbc.Condition.moreThan;
+import static de.srsoftware.tools.jdbc.Query.MARK;
+
+import de.srsoftware.tools.jdbc.Query;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * measures the query builders against an in-memory SQLite database.
+ * The table is reset before every iteration, so inserted and updated rows do not skew later measurements.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqliteBenchmark {
+	private static final String TABLE = "movies";
+	private static final int    BASE  = 1000;
+
+	private Connection                conn;
+	private PreparedStatement         bindTarget;
+	private Query.PreparedUpdateQuery update;
+	private PreparedStatement         updateStatement;
+	private long                      nextId;
+
+	/**
+	 * the number of rows written per invocation, only used by the insert and update benchmarks
+	 */
+	@State(Scope.Thread)
+	public static class Batch {
+		/** number of rows written per invocation **/
+		@Param({"1", "100"})
+		public int rows;
+	}
+
+	record Movie(long id, int year, String title) {
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+		try (var stmt = conn.createStatement()) {
+			stmt.execute("CREATE TABLE %s (id INTEGER PRIMARY KEY, year INT, title TEXT)".formatted(TABLE));
+		}
+		bindTarget = conn.prepareStatement("SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?");
+		update     = Query.update(TABLE).set("year").where("id", equal(MARK)).prepare(conn);
+	}
+
+	@Setup(Level.Iteration)
+	public void reset() throws SQLException {
+		Query.delete().from(TABLE).execute(conn);
+		var insert = Query.insertInto(TABLE, "id", "year", "title");
+		for (nextId = 0; nextId < BASE; nextId++) insert.values(nextId, 1900 + (int)(nextId % 120), "Movie " + nextId);
+		insert.execute(conn).close();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		if (updateStatement != null) updateStatement.close();
+		bindTarget.close();
+		conn.close();
+	}
+
+	@Benchmark
+	public PreparedStatement bindParameters() throws SQLException {
+		for (int i = 1; i <= 10; i++) Query.bind(bindTarget, i, i % 2 == 0 ? i : "value " + i);
+		return bindTarget;
+	}
+
+	@Benchmark
+	public boolean deleteMissing() throws SQLException {
+		return Query.delete().from(TABLE).where("id", in(-1, -2, -3)).execute(conn);
+	}
+
+	@Benchmark
+	public void insertSingle(Batch batch) throws SQLException {
+		for (int i = 0; i < batch.rows; i++) {
+			var id = nextId++;
+			Query.insertInto(TABLE, "id", "year", "title").values(id, 2000, "Single " + id).execute(conn).close();
+		}
+	}
+
+	@Benchmark
+	public void insertBatched(Batch batch) throws SQLException {
+		var insert = Query.insertInto(TABLE, "id", "year", "title");
+		for (int i = 0; i < batch.rows; i++) {
+			var id = nextId++;
+			insert.values(id, 2000, "Batched " + id);
+		}
+		insert.execute(conn).close();
+	}
+
+	@Benchmark
+	public void updatePrepared(Batch batch) throws SQLException {
+		for (int id = 0; id < batch.rows; id++) updateStatement = update.apply(1999, id); // the statement is prepared once per trial
+	}
+
+	@Benchmark
+	public void updateUnprepared(Batch batch) throws SQLException {
+		for (int id = 0; id < batch.rows; id++) Query.update(TABLE).set("year").where("id", equal(MARK)).prepare(conn).apply(1999, id).close();
+	}
+
+	@Benchmark
+	public List<Movie> selectAndMap() throws SQLException {
+		return Query.select("id", "year", "title").from(TABLE).where("year", moreThan(1950)).limit(500).list(conn, rs -> new Movie(rs.getLong("id"), rs.getInt("year"), rs.getString("title")));
+	}
+}
@@ -1,12 +1,11 @@
 /* © SRSoftware 2025 */
 package de.srsoftware.tools; /* © SRSoftware 2024 */
 
-import static de.srsoftware.tools.Optionals.nullable;
-import static java.lang.System.Logger.Level.INFO;
+import static java.lang.System.Logger.Level.DEBUG;
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -17,12 +16,21 @@ public abstract class Cookie implements Map.Entry<String, String> {
 	static final System.Logger LOG = System.getLogger(SessionToken.class.getSimpleName());
 	private final String       key;
 	private String	           value = null;
+	private String             domain, path, sameSite;
+	private Long               maxAge;
+	private boolean            httpOnly, secure;
 
 	Cookie(String key, String value) {
 		this.key = key;
 		setValue(value);
 	}
 
+	Cookie(String key, String value, String path, Duration maxAge) {
+		this(key, value);
+		path(path);
+		maxAge(maxAge);
+	}
+
 	/**
 	 * add this cookie instance to a Headers object
 	 * @param headers the headers object, to which this cookie is added
@@ -31,8 +39,8 @@ public abstract class Cookie implements Map.Entry<String, String> {
 	 */
 	@SuppressWarnings("unchecked")
 	public <T extends Cookie> T addTo(Headers headers) {
-		LOG.log(INFO, "sending cookie {0}={1}", key, value);
-		headers.add("Set-Cookie", "%s=%s".formatted(key, value));
+		if (LOG.isLoggable(DEBUG)) LOG.log(DEBUG, "sending cookie {0}", key); // the value may be a secret
+		headers.add("Set-Cookie", toString());
 		return (T)this;
 	}
 
@@ -46,6 +54,18 @@ public abstract class Cookie implements Map.Entry<String, String> {
 		return this.addTo(ex.getResponseHeaders());
 	}
 
+	/**
+	 * restrict the cookie to the given domain and its subdomains
+	 * @param domain the domain, or null to send the cookie to the origin host only
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T domain(String domain) {
+		this.domain = domain;
+		return (T)this;
+	}
+
 	@Override
 	public String getKey() {
 		return key;
@@ -56,13 +76,74 @@ public abstract class Cookie implements Map.Entry<String, String> {
 		return value;
 	}
 
+	/**
+	 * hide the cookie from scripts
+	 * @param httpOnly whether to set the <em>HttpOnly</em> attribute
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T httpOnly(boolean httpOnly) {
+		this.httpOnly = httpOnly;
+		return (T)this;
+	}
+
+	/**
+	 * set the lifetime of the cookie
+	 * @param maxAge the time after which the client discards the cookie, zero to delete it, or null for a session cookie
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T maxAge(Duration maxAge) {
+		this.maxAge = maxAge == null ? null : maxAge.toSeconds();
+		return (T)this;
+	}
+
 	/**
 	 * list the cookies of a given HttpExchange object
 	 * @param ex the HttpExchange object
-	 * @return the list of cookies
+	 * @return the list of cookies, in the form <em>name=value</em>
+	 * @see Cookies#of(HttpExchange)
 	 */
 	protected static List<String> of(HttpExchange ex) {
-		return nullable(ex.getRequestHeaders().get("Cookie")).stream().flatMap(List::stream).flatMap(s -> Arrays.stream(s.split(";"))).map(String::trim).peek(cookie -> LOG.log(INFO, "received cookie {0}", cookie)).toList();
+		return RequestContext.of(ex).cookies().toList();
+	}
+
+	/**
+	 * restrict the cookie to the given path
+	 * @param path the path, or null for the default path
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T path(String path) {
+		this.path = path;
+		return (T)this;
+	}
+
+	/**
+	 * control whether the cookie is sent with cross-site requests
+	 * @param sameSite one of <em>Strict</em>, <em>Lax</em> or <em>None</em>, or null to omit the attribute
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T sameSite(String sameSite) {
+		this.sameSite = sameSite;
+		return (T)this;
+	}
+
+	/**
+	 * only send the cookie via https
+	 * @param secure whether to set the <em>Secure</em> attribute
+	 * @return this cookie
+	 * @param <T> the type of this cookie
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Cookie> T secure(boolean secure) {
+		this.secure = secure;
+		return (T)this;
 	}
 
 	@Override
@@ -71,4 +152,21 @@ public abstract class Cookie implements Map.Entry<String, String> {
 		value      = s;
 		return oldVal;
 	}
+
+	/**
+	 * the value of the <em>Set-Cookie</em> header for this cookie
+	 * @return the cookie and its attributes
+	 */
+	@Override
+	public String toString() {
+		var sb = new StringBuilder(key.length() + (value == null ? 0 : value.length()) + 64).append(key).append('=');
+		if (value != null) sb.append(value);
+		if (path != null) sb.append("; Path=").append(path);
+		if (domain != null) sb.append("; Domain=").append(domain);
+		if (maxAge != null) sb.append("; Max-Age=").append(maxAge);
+		if (secure) sb.append("; Secure");
+		if (httpOnly) sb.append("; HttpOnly");
+		if (sameSite != null) sb.append("; SameSite=").append(sameSite);
+		return sb.toString();
+	}
 }
@@ -0,0 +1,164 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only name → value view of the cookies submitted in the <em>Cookie</em> header(s) of a request.
+ * The header is scanned once to find the bounds of the cookies; names and values are only extracted, when they are accessed.
+ * If a name occurs several times, only its first occurrence is part of the view.
+ */
+public class Cookies extends AbstractMap<String, String> {
+	private static final int[] NONE = new int[0];
+
+	private final String source;
+	private final int[]  bounds;  // name start, name end, value start, value end of every cookie
+	private EntrySet     entries;
+
+	private Cookies(String source, int[] bounds) {
+		this.source = source;
+		this.bounds = bounds;
+	}
+
+	private static boolean contains(String header, int[] bounds, int count, int nameStart, int nameEnd) {
+		var length = nameEnd - nameStart;
+		for (int i = 0; i < count; i += 4) {
+			if (bounds[i + 1] - bounds[i] == length && header.regionMatches(bounds[i], header, nameStart, length)) return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	private class EntrySet extends AbstractSet<Entry<String, String>> {
+		@Override
+		public Iterator<Entry<String, String>> iterator() {
+			return new Iterator<>() {
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+					return index < bounds.length;
+				}
+
+				@Override
+				public Entry<String, String> next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					var entry = new SimpleImmutableEntry<>(name(index), value(index));
+					index += 4;
+					return entry;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return Cookies.this.size();
+		}
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		if (entries == null) entries = new EntrySet();
+		return entries;
+	}
+
+	@Override
+	public String get(Object key) {
+		var index = indexOf(key);
+		return index < 0 ? null : value(index);
+	}
+
+	private int indexOf(Object key) {
+		if (!(key instanceof String name)) return -1;
+		var length = name.length();
+		for (int i = 0; i < bounds.length; i += 4) {
+			if (bounds[i + 1] - bounds[i] == length && source.regionMatches(bounds[i], name, 0, length)) return i;
+		}
+		return -1;
+	}
+
+	private String name(int index) {
+		return source.substring(bounds[index], bounds[index + 1]);
+	}
+
+	/**
+	 * parse the <em>Cookie</em> headers of a request
+	 * @param ex the exchange to read the headers from
+	 * @return the view of the submitted cookies
+	 */
+	public static Cookies of(HttpExchange ex) {
+		var headers = ex.getRequestHeaders().get("Cookie");
+		if (headers == null || headers.isEmpty()) return parse(null);
+		return parse(headers.size() == 1 ? headers.getFirst() : String.join(";", headers));
+	}
+
+	/**
+	 * parse the value of a <em>Cookie</em> header
+	 * @param header a string like <em>name1=value1; name2=value2</em>
+	 * @return the view of the cookies
+	 */
+	public static Cookies parse(String header) {
+		if (header == null || header.isBlank()) return new Cookies("", NONE);
+		var bounds = new int[8];
+		var count  = 0;
+		var length = header.length();
+		for (int start = 0; start < length; ) {
+			var end = header.indexOf(';', start);
+			if (end < 0) end = length;
+			var eq = header.indexOf('=', start, end);
+			if (eq > 0) {
+				int nameStart = skipSpace(header, start, eq), nameEnd = trimSpace(header, nameStart, eq);
+				int valStart = skipSpace(header, eq + 1, end), valEnd = trimSpace(header, valStart, end);
+				if (nameEnd > nameStart && !contains(header, bounds, count, nameStart, nameEnd)) {
+					if (count == bounds.length) bounds = Arrays.copyOf(bounds, 2 * count);
+					bounds[count++] = nameStart;
+					bounds[count++] = nameEnd;
+					bounds[count++] = valStart;
+					bounds[count++] = valEnd;
+				}
+			}
+			start = end + 1;
+		}
+		return new Cookies(header, count == bounds.length ? bounds : Arrays.copyOf(bounds, count));
+	}
+
+	@Override
+	public int size() {
+		return bounds.length / 4;
+	}
+
+	private static int skipSpace(String s, int from, int to) {
+		while (from < to && Character.isWhitespace(s.charAt(from))) from++;
+		return from;
+	}
+
+	/**
+	 * the cookies in the form <em>name=value</em>, as provided by earlier versions of {@link Cookie}
+	 * @return the list of cookies
+	 */
+	public List<String> toList() {
+		var list = new String[size()];
+		for (int i = 0; i < bounds.length; i += 4) list[i / 4] = source.substring(bounds[i], bounds[i + 3]);
+		return List.of(list);
+	}
+
+	private static int trimSpace(String s, int from, int to) {
+		while (to > from && Character.isWhitespace(s.charAt(to - 1))) to--;
+		return to;
+	}
+
+	private String value(int index) {
+		return source.substring(bounds[index + 2], bounds[index + 3]);
+	}
+}
@@ -0,0 +1,367 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.MimeType.MIME_EVENT_STREAM;
+import static de.srsoftware.tools.PathHandler.CONTENT_TYPE;
+import static java.lang.System.Logger.Level.*;
+import static java.net.HttpURLConnection.HTTP_OK;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fans out server-sent events (text/event-stream) to the subscribers of topics.
+ * Every event is encoded once, no matter how many subscribers receive it.
+ * Each subscriber has a bounded queue, so slow clients can not stall publishers.
+ * The latest events of every topic are kept in a ring buffer, so reconnecting clients can resume via <em>Last-Event-ID</em>.
+ * Topics without subscribers are dropped, once nothing has been published to them for the {@link #idle(Duration) idle time}.
+ */
+public class EventBroadcaster {
+	/** "Last-Event-ID" **/ public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+	private static final System.Logger LOG       = System.getLogger(EventBroadcaster.class.getSimpleName());
+	private static final byte[]        HEARTBEAT = ":\n\n".getBytes(UTF_8);
+	private static final Event         WAKE      = new Event(Long.MIN_VALUE, new byte[0]); // wakes up a waiting subscriber, never sent
+
+	private final Map<String, Topic> topics    = new ConcurrentHashMap<>();
+	private final AtomicLong         sequence  = new AtomicLong();
+	private final LongAdder          dropped   = new LongAdder();
+	private final AtomicLong         nextSweep = new AtomicLong(System.nanoTime());
+	private int                      queueSize = 256;
+	private int                      replay    = 128;
+	private Duration                 heartbeat = Duration.ofSeconds(15);
+	private volatile long            idle      = Duration.ofMinutes(5).toNanos();
+	private Overflow                 overflow  = Overflow.DROP_OLDEST;
+	private volatile boolean         closed    = false;
+
+	/**
+	 * what to do, if the queue of a subscriber is full
+	 */
+	public enum Overflow {
+		/** discard the oldest queued event of the subscriber **/ DROP_OLDEST,
+		/** disconnect the subscriber, it may reconnect and resume via Last-Event-ID **/ DISCONNECT
+	}
+
+	private record Event(long id, byte[] bytes) {
+	}
+
+	private class Subscriber {
+		private final BlockingQueue<Event> queue     = new ArrayBlockingQueue<>(queueSize);
+		private volatile boolean           kicked    = false; // stop right away
+		private volatile boolean           finishing = false; // stop once the queue is empty
+
+		private void offer(Event event) {
+			while (!queue.offer(event)) {
+				dropped.increment();
+				if (overflow == Overflow.DISCONNECT) {
+					kick();
+					return;
+				}
+				queue.poll();
+			}
+		}
+
+		private void kick() {
+			kicked = true;
+			queue.clear();
+			queue.offer(WAKE);
+		}
+
+		private void finish() {
+			finishing = true;
+			queue.offer(WAKE); // if the queue is full, the subscriber is busy anyway and checks the flag once it ran empty
+		}
+	}
+
+	private class Topic {
+		private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+		private final Event[]         ring        = new Event[replay];
+		private int                   next        = 0;
+		private boolean               retired     = false;
+		private long                  touched     = System.nanoTime(); // last publication or unsubscription
+
+		/**
+		 * remove the topic, if it has no subscribers and either no events to replay or has been idle for too long
+		 * @param now the current value of {@link System#nanoTime()}
+		 * @return true, if the topic was retired
+		 */
+		private synchronized boolean retire(long now) {
+			retired = subscribers.isEmpty() && (ring.length == 0 || ring[(next + ring.length - 1) % ring.length] == null || now - touched >= idle);
+			return retired;
+		}
+
+		/**
+		 * @return the id of the event, or -1, if the topic has been retired meanwhile
+		 */
+		private synchronized long publish(byte[] body) {
+			if (retired) return -1;
+			// ids are assigned under the topic lock, so subscribers receive them in ascending order
+			var id    = sequence.incrementAndGet();
+			var head  = ("id: " + id + "\n").getBytes(UTF_8);
+			var bytes = new byte[head.length + body.length];
+			System.arraycopy(head, 0, bytes, 0, head.length);
+			System.arraycopy(body, 0, bytes, head.length, body.length);
+			var event = new Event(id, bytes);
+			touched   = System.nanoTime();
+			if (ring.length > 0) {
+				ring[next] = event;
+				next       = (next + 1) % ring.length;
+			}
+			for (var subscriber : subscribers) subscriber.offer(event);
+			return id;
+		}
+
+		private synchronized List<Event> since(long lastId) {
+			var list = new ArrayList<Event>();
+			for (int i = 0; i < ring.length; i++) {
+				var event = ring[(next + i) % ring.length];
+				if (event != null && event.id() > lastId) list.add(event);
+			}
+			return list;
+		}
+
+		private synchronized long subscribe(Subscriber subscriber) {
+			subscribers.add(subscriber);
+			return sequence.get(); // every event published to this topic from now on has a greater id
+		}
+
+		private synchronized void unsubscribe(Subscriber subscriber) {
+			subscribers.remove(subscriber);
+			touched = System.nanoTime();
+		}
+	}
+
+	/**
+	 * end all subscriptions, after the events queued so far have been delivered, and reject new ones
+	 */
+	public void close() {
+		closed = true;
+		for (var topic : topics.values()) {
+			for (var subscriber : topic.subscribers) subscriber.finish();
+		}
+	}
+
+	/**
+	 * the number of events dropped because of full subscriber queues
+	 * @return the number of dropped events
+	 */
+	public long dropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * encode the type and data of an event according to the event stream format. The id is prepended on publication.
+	 * @param name the event type, may be null
+	 * @param data the payload. Strings are sent as they are, other objects are serialized as JSON
+	 * @return the encoded event
+	 * @throws IllegalArgumentException if the name contains line breaks
+	 */
+	private static byte[] encode(String name, Object data) throws IOException {
+		var text = data instanceof String string ? string : null;
+		if (text == null) {
+			var writer = new StringWriter();
+			JsonWriter.write(data, writer);
+			text = writer.toString();
+		}
+		if (name != null && (name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0)) throw new IllegalArgumentException("Event names must not contain line breaks");
+		var sb = new StringBuilder();
+		if (name != null) sb.append("event: ").append(name).append('\n');
+		for (var line : text.split("\r\n|\r|\n", -1)) sb.append("data: ").append(line).append('\n');
+		return sb.append('\n').toString().getBytes(UTF_8);
+	}
+
+	/**
+	 * drop all topics, that have no subscribers and have been idle for too long
+	 * @param now the current value of {@link System#nanoTime()}
+	 */
+	private void expire(long now) {
+		for (var name : topics.keySet()) topics.computeIfPresent(name, (k, t) -> t.retire(now) ? null : t); // atomic with subscribe
+	}
+
+	/**
+	 * set the interval of comment lines sent to idle subscribers, which keeps proxies from closing the connection and detects disconnected clients
+	 * @param interval the heartbeat interval
+	 * @return this broadcaster
+	 */
+	public EventBroadcaster heartbeat(Duration interval) {
+		heartbeat = interval;
+		return this;
+	}
+
+	/**
+	 * set the time after which topics without subscribers are dropped, if nothing has been published to them. Their events can no longer be replayed then.
+	 * @param time the idle time
+	 * @return this broadcaster
+	 */
+	public EventBroadcaster idle(Duration time) {
+		idle = time.toNanos();
+		nextSweep.set(System.nanoTime() + idle);
+		return this;
+	}
+
+	/**
+	 * set the policy for subscribers, that do not keep up with the published events
+	 * @param policy the overflow policy
+	 * @return this broadcaster
+	 */
+	public EventBroadcaster overflow(Overflow policy) {
+		overflow = policy;
+		return this;
+	}
+
+	/**
+	 * publish an event to all subscribers of a topic. If nobody subscribed to the topic and no events are kept for replay, the event is discarded.
+	 * @param topic the topic
+	 * @param name the event type, may be null
+	 * @param data the payload. Strings are sent as they are, other objects are serialized as JSON
+	 * @return the id of the event, or -1, if the broadcaster is closed
+	 * @throws IOException if the payload can not be serialized
+	 * @throws IllegalArgumentException if the name contains line breaks
+	 */
+	public long publish(String topic, String name, Object data) throws IOException {
+		if (closed) return -1;
+		var body = encode(name, data);
+		sweep();
+		while (true) {
+			var t = replay > 0 ? topic(topic) : topics.get(topic);
+			if (t == null) return sequence.incrementAndGet(); // nobody listens, nothing to keep
+			var id = t.publish(body);
+			if (id > 0) return id; // otherwise the topic was retired concurrently
+		}
+	}
+
+	/**
+	 * expire idle topics, at most once per idle time
+	 */
+	private void sweep() {
+		var now  = System.nanoTime();
+		var next = nextSweep.get();
+		if (now - next >= 0 && nextSweep.compareAndSet(next, now + idle)) expire(now);
+	}
+
+	/**
+	 * set the number of events per topic kept for replay. Must be set before the first event is published.
+	 * @param events the number of events
+	 * @return this broadcaster
+	 */
+	public EventBroadcaster replay(int events) {
+		replay = events;
+		return this;
+	}
+
+	/**
+	 * set the maximum number of events queued per subscriber. Must be set before the first subscription.
+	 * @param events the number of events
+	 * @return this broadcaster
+	 */
+	public EventBroadcaster queueSize(int events) {
+		queueSize = events;
+		return this;
+	}
+
+	/**
+	 * respond to the exchange with an event stream, delivering the events of the topic.
+	 * Events newer than the <em>Last-Event-ID</em> sent by the client are replayed first.
+	 * This method blocks until the client disconnects or the broadcaster is closed, so it should be called on a virtual thread, see {@link RequestExecutor}.
+	 * @param topic the topic to subscribe to
+	 * @param ex the exchange to respond to
+	 * @return false, as the response has ended
+	 * @throws IOException if the response headers can not be sent
+	 */
+	public boolean subscribe(String topic, HttpExchange ex) throws IOException {
+		if (closed) return PathHandler.sendEmptyResponse(HTTP_UNAVAILABLE, ex);
+		var headers = ex.getResponseHeaders();
+		headers.set(CONTENT_TYPE, MIME_EVENT_STREAM);
+		headers.set("Cache-Control", "no-cache");
+		ResponseCache.bypass(ex);
+		ex.sendResponseHeaders(HTTP_OK, 0);
+
+		var subscriber = new Subscriber();
+		var current    = new long[1];
+		var t          = topics.compute(topic, (name, existing) -> { // atomic with retire(), so the topic can not be retired before the subscriber is added
+			var result = existing == null ? new Topic() : existing;
+			current[0] = result.subscribe(subscriber);
+			return result;
+		});
+		if (closed) subscriber.finish(); // closed concurrently
+		var out        = ex.getResponseBody();
+		var resume     = PathHandler.getHeader(ex, LAST_EVENT_ID).map(EventBroadcaster::parseId);
+		// events published after subscribing may be both queued and replayed: only send those newer than the last sent event
+		var lastId = Math.min(resume.orElse(Long.MAX_VALUE), current[0]);
+		try {
+			if (resume.isPresent()) {
+				for (var event : t.since(lastId)) {
+					out.write(event.bytes());
+					lastId = event.id();
+				}
+			}
+			out.flush();
+			var timeout = heartbeat.toMillis();
+			while (!subscriber.kicked) {
+				var event = subscriber.queue.poll(timeout, TimeUnit.MILLISECONDS);
+				if (event == null) {
+					if (subscriber.finishing) break;
+					out.write(HEARTBEAT);
+				} else if (event.id() > lastId) {
+					out.write(event.bytes());
+				}
+				if (subscriber.queue.isEmpty()) {
+					out.flush();
+					if (subscriber.finishing) break;
+				}
+			}
+			if (subscriber.kicked) LOG.log(INFO, "Disconnecting slow subscriber of {0}", topic);
+		} catch (IOException e) {
+			LOG.log(DEBUG, "Subscriber of {0} disconnected: {1}", topic, e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			t.unsubscribe(subscriber);
+			var now = System.nanoTime();
+			topics.computeIfPresent(topic, (name, existing) -> existing == t && t.retire(now) ? null : existing);
+		}
+		return false;
+	}
+
+	/**
+	 * the number of subscribers of a topic
+	 * @param topic the topic
+	 * @return the number of connected subscribers
+	 */
+	public int subscribers(String topic) {
+		var t = topics.get(topic);
+		return t == null ? 0 : t.subscribers.size();
+	}
+
+	/**
+	 * the number of topics, that have subscribers or keep events for replay. Idle topics are dropped first.
+	 * @return the number of topics
+	 */
+	public int topics() {
+		expire(System.nanoTime());
+		return topics.size();
+	}
+
+	private Topic topic(String name) {
+		return topics.computeIfAbsent(name, k -> new Topic());
+	}
+
+	private static Long parseId(String id) {
+		try {
+			return Long.parseLong(id.strip());
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import de.srsoftware.tools.container.Payload;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONString;
+
+/**
+ * Writes objects as JSON directly to a Writer, without building intermediate JSONObjects, JSONArrays or Strings.
+ * The output matches that of <code>new JSONObject(map).toString()</code> and <code>new JSONArray(collection).toString()</code>:
+ * null values in maps are omitted, numbers are formatted like org.json does, other objects are converted via {@link JSONObject#wrap(Object)}.
+ */
+public class JsonWriter {
+
+	private JsonWriter() {
+		// discourage instantiation
+	}
+
+	/**
+	 * checks, whether the object is written as JSON object or array
+	 * @param o the object to test
+	 * @return true for maps, iterables, streams, arrays, Mappables, JSONObjects and JSONArrays
+	 */
+	public static boolean isStructure(Object o) {
+		if (o instanceof Payload<?> payload) o = payload.get();
+		return o instanceof Map<?, ?> || o instanceof Iterable<?> || o instanceof Stream<?> || o instanceof Mappable || o instanceof JSONObject || (o != null && o.getClass().isArray());
+	}
+
+	/**
+	 * write an object as JSON
+	 * @param o the object to write
+	 * @param writer the writer to write to
+	 * @throws IOException if writing fails
+	 * @throws org.json.JSONException if the object contains non-finite numbers
+	 */
+	public static void write(Object o, Writer writer) throws IOException {
+		switch (o) {
+			case null -> writer.write("null");
+			case Payload<?> payload -> write(payload.get(), writer);
+			case String string -> JSONObject.quote(string, writer);
+			case Character character -> JSONObject.quote(character.toString(), writer);
+			case Enum<?> e -> JSONObject.quote(e.name(), writer);
+			case Boolean bool -> writer.write(bool.toString());
+			case Number number -> {
+				JSONObject.testValidity(number);
+				writer.write(JSONObject.numberToString(number));
+			}
+			case JSONString json -> writer.write(json.toJSONString());
+			case JSONObject json -> json.write(writer);
+			case JSONArray json -> json.write(writer);
+			case Mappable mappable -> writeMap(mappable.toMap(), writer);
+			case Map<?, ?> map -> writeMap(map, writer);
+			case Iterable<?> iterable -> writeArray(iterable.iterator(), writer);
+			case Stream<?> stream -> writeArray(stream.iterator(), writer);
+			default -> {
+				if (o == JSONObject.NULL) {
+					writer.write("null");
+				} else if (o.getClass().isArray()) {
+					writeArray(o, writer);
+				} else {
+					write(JSONObject.wrap(o), writer);
+				}
+			}
+		}
+	}
+
+	private static void writeArray(Iterator<?> it, Writer writer) throws IOException {
+		writer.write('[');
+		for (boolean first = true; it.hasNext(); first = false) {
+			if (!first) writer.write(',');
+			write(it.next(), writer);
+		}
+		writer.write(']');
+	}
+
+	private static void writeArray(Object array, Writer writer) throws IOException {
+		writer.write('[');
+		for (int i = 0, len = Array.getLength(array); i < len; i++) {
+			if (i > 0) writer.write(',');
+			write(Array.get(array, i), writer);
+		}
+		writer.write(']');
+	}
+
+	private static void writeMap(Map<?, ?> map, Writer writer) throws IOException {
+		writer.write('{');
+		var first = true;
+		for (var entry : map.entrySet()) {
+			var value = entry.getValue();
+			if (entry.getKey() == null || value == null) continue;
+			if (!first) writer.write(',');
+			first = false;
+			JSONObject.quote(entry.getKey().toString(), writer);
+			writer.write(':');
+			write(value, writer);
+		}
+		writer.write('}');
+	}
+}
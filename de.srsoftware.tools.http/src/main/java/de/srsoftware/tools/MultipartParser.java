@@ -0,0 +1,496 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.MimeType.MIME_FORM_DATA;
+import static java.lang.System.Logger.Level.WARNING;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Streaming parser for multipart/form-data bodies.
+ * Parts are read one after another from the underlying stream. Small parts are kept in memory,
+ * larger parts are spilled to temporary files, so the size of uploads is not limited by the heap.
+ */
+public class MultipartParser {
+	private static final System.Logger LOG             = System.getLogger(MultipartParser.class.getSimpleName());
+	private static final int           BUFFER_SIZE     = 64 * 1024;
+	private static final int           MAX_HEADER_SIZE = 8 * 1024;
+
+	private final InputStream in;
+	private final byte[]      delimiter;
+	private final byte[]      buffer;
+	private int               pos          = 0;
+	private int               limit        = 0;
+	private boolean           eof          = false;
+	private boolean           finished     = false;
+	private int               parts        = 0;
+	private long              total        = 0;
+	private int               maxParts     = 1000;
+	private long              maxPartSize  = Long.MAX_VALUE;
+	private long              maxTotalSize = Long.MAX_VALUE;
+	private int               spillAbove   = 64 * 1024;
+	private File              tempDir      = null;
+
+	/**
+	 * thrown, if the body exceeds one of the configured limits. Should be answered with status 413.
+	 */
+	public static class LimitExceeded extends IOException {
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * create a new exception
+		 * @param message description of the exceeded limit
+		 */
+		public LimitExceeded(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * a part of a multipart body. Parts spilled to disk must be closed to delete their temporary file.
+	 */
+	public static class Part implements AutoCloseable {
+		private final Map<String, String> headers;
+		private final String              name;
+		private final String              filename;
+		private final long                size;
+		private final byte[]              data;
+		private final File                file;
+
+		private Part(Map<String, String> headers, long size, byte[] data, File file) {
+			var disposition = headers.getOrDefault("content-disposition", "");
+			this.headers  = Collections.unmodifiableMap(headers);
+			this.name     = parameter(disposition, "name");
+			this.filename = parameter(disposition, "filename");
+			this.size     = size;
+			this.data     = data;
+			this.file     = file;
+		}
+
+		/**
+		 * the content of this part
+		 * @return the content as byte array
+		 * @throws IOException if reading the spilled content fails
+		 */
+		public byte[] bytes() throws IOException {
+			return file == null ? data : Files.readAllBytes(file.toPath());
+		}
+
+		/**
+		 * delete the temporary file of this part, if any
+		 */
+		@Override
+		public void close() {
+			if (file != null && file.exists() && !file.delete()) LOG.log(WARNING, "Failed to delete {0}", file);
+		}
+
+		/**
+		 * the content type of this part
+		 * @return the value of the Content-Type header of the part, or null, if not given
+		 */
+		public String contentType() {
+			return headers.get("content-type");
+		}
+
+		/**
+		 * the temporary file holding the content of this part
+		 * @return the file, or null, if the content is kept in memory
+		 */
+		public File file() {
+			return file;
+		}
+
+		/**
+		 * the file name submitted with this part
+		 * @return the file name, or null for regular form fields
+		 */
+		public String filename() {
+			return filename;
+		}
+
+		/**
+		 * the headers of this part
+		 * @return an unmodifiable map of the headers, with lower case names
+		 */
+		public Map<String, String> headers() {
+			return headers;
+		}
+
+		/**
+		 * stream the content of this part
+		 * @return a stream of the content
+		 * @throws IOException if opening the spilled content fails
+		 */
+		public InputStream inputStream() throws IOException {
+			return file == null ? new ByteArrayInputStream(data) : Files.newInputStream(file.toPath());
+		}
+
+		/**
+		 * move the content of this part to the target file
+		 * @param target the file to write to, will be replaced, if it exists
+		 * @return the target file
+		 * @throws IOException if writing the target fails
+		 */
+		public File moveTo(File target) throws IOException {
+			if (file == null) {
+				Files.write(target.toPath(), data);
+			} else {
+				Files.move(file.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			return target;
+		}
+
+		/**
+		 * the name of the form field
+		 * @return the name given in the Content-Disposition header
+		 */
+		public String name() {
+			return name;
+		}
+
+		/**
+		 * the size of the content
+		 * @return the number of bytes
+		 */
+		public long size() {
+			return size;
+		}
+
+		/**
+		 * the content of this part as text
+		 * @return the content decoded as UTF-8
+		 * @throws IOException if reading the spilled content fails
+		 */
+		public String string() throws IOException {
+			return new String(bytes(), UTF_8);
+		}
+
+		@Override
+		public String toString() {
+			return "Part(%s%s, %d bytes)".formatted(name, filename == null ? "" : ": " + filename, size);
+		}
+	}
+
+	/**
+	 * create a parser
+	 * @param in the body to parse
+	 * @param boundary the boundary, as given in the Content-Type header of the body
+	 */
+	public MultipartParser(InputStream in, String boundary) {
+		this.in        = in;
+		this.delimiter = ("\r\n--" + boundary).getBytes(ISO_8859_1);
+		this.buffer    = new byte[Math.max(BUFFER_SIZE, 2 * delimiter.length)];
+		// the first boundary is not preceded by a line break: pretend it is
+		buffer[limit++] = '\r';
+		buffer[limit++] = '\n';
+	}
+
+	/**
+	 * create a parser for the body of an exchange
+	 * @param ex the exchange, whose body is to be parsed
+	 * @return the parser
+	 * @throws IOException if the body is not of type multipart/form-data or lacks a boundary
+	 */
+	public static MultipartParser of(HttpExchange ex) throws IOException {
+		var type = PathHandler.contentType(ex).orElse("");
+		if (!type.toLowerCase().startsWith(MIME_FORM_DATA)) throw new IOException("Not a %s body: %s".formatted(MIME_FORM_DATA, type));
+		var boundary = parameter(type, "boundary");
+		if (boundary == null || boundary.isEmpty()) throw new IOException("Missing boundary in " + type);
+		return new MultipartParser(PathHandler.bodyStream(ex), boundary);
+	}
+
+	/**
+	 * read all parts into a map, like {@link Query#decode(String)} does for url-encoded forms.
+	 * Form fields are mapped to Strings, file uploads to {@link Part}s, which must be closed by the caller.
+	 * @return the map of form fields
+	 * @throws IOException if reading the body fails or a limit is exceeded
+	 */
+	public Map<String, Object> formData() throws IOException {
+		var map   = new LinkedHashMap<String, Object>();
+		var files = new ArrayList<Part>();
+		try {
+			for (var part = next(); part != null; part = next()) {
+				if (part.name() == null) {
+					part.close();
+				} else if (part.filename() == null) {
+					Query.insertInto(map, part.name(), part.string());
+					part.close();
+				} else {
+					files.add(part);
+					Query.insertInto(map, part.name(), part);
+				}
+			}
+		} catch (IOException e) {
+			files.forEach(Part::close); // do not leave temporary files behind
+			throw e;
+		}
+		return map;
+	}
+
+	/**
+	 * set the maximum number of parts
+	 * @param count the maximum number of parts
+	 * @return this parser
+	 */
+	public MultipartParser maxParts(int count) {
+		maxParts = count;
+		return this;
+	}
+
+	/**
+	 * set the maximum size of a single part
+	 * @param bytes the maximum size
+	 * @return this parser
+	 */
+	public MultipartParser maxPartSize(long bytes) {
+		maxPartSize = bytes;
+		return this;
+	}
+
+	/**
+	 * set the maximum size of all parts together
+	 * @param bytes the maximum size
+	 * @return this parser
+	 */
+	public MultipartParser maxTotalSize(long bytes) {
+		maxTotalSize = bytes;
+		return this;
+	}
+
+	/**
+	 * read the next part from the body
+	 * @return the part, or null, if the final boundary has been reached
+	 * @throws IOException if reading the body fails, it is malformed or a limit is exceeded
+	 */
+	public Part next() throws IOException {
+		if (finished) return null;
+		if (parts == 0) skipPreamble();
+		if (finished) return null;
+		if (++parts > maxParts) throw new LimitExceeded("More than %d parts".formatted(maxParts));
+		var headers = readHeaders();
+		var sink    = new Sink();
+		try {
+			while (true) {
+				var index = indexOfDelimiter();
+				if (index >= 0) {
+					sink.write(index - pos);
+					pos = index + delimiter.length;
+					break;
+				}
+				var safe = limit - delimiter.length + 1; // the tail might be the beginning of a delimiter
+				if (safe > pos) sink.write(safe - pos);
+				if (!fill()) throw new EOFException("Unexpected end of multipart body");
+			}
+			readBoundaryEnd();
+			return sink.toPart(headers);
+		} catch (IOException e) {
+			sink.discard();
+			throw e;
+		}
+	}
+
+	/**
+	 * set the size above which parts are written to temporary files
+	 * @param bytes the maximum number of bytes kept in memory per part
+	 * @return this parser
+	 */
+	public MultipartParser spillAbove(int bytes) {
+		spillAbove = bytes;
+		return this;
+	}
+
+	/**
+	 * set the directory for temporary files
+	 * @param dir the directory, null for the system default
+	 * @return this parser
+	 */
+	public MultipartParser tempDir(File dir) {
+		tempDir = dir;
+		return this;
+	}
+
+	/******* parsing *************/
+
+	private class Sink {
+		private ByteArrayOutputStream memory  = new ByteArrayOutputStream();
+		private File                  file    = null;
+		private FileChannel           channel = null;
+		private long                  size    = 0;
+
+		private void discard() throws IOException {
+			if (channel != null) channel.close();
+			if (file != null) Files.deleteIfExists(file.toPath());
+		}
+
+		private Part toPart(Map<String, String> headers) throws IOException {
+			if (channel == null) return new Part(headers, size, memory.toByteArray(), null);
+			channel.close();
+			return new Part(headers, size, null, file);
+		}
+
+		private void write(int length) throws IOException {
+			if (length <= 0) return;
+			size  += length;
+			total += length;
+			if (size > maxPartSize) throw new LimitExceeded("Part exceeds %d bytes".formatted(maxPartSize));
+			if (total > maxTotalSize) throw new LimitExceeded("Body exceeds %d bytes".formatted(maxTotalSize));
+			if (channel == null && size > spillAbove) {
+				// unlike File.createTempFile, Files.createTempFile makes the file readable by its owner only
+				var path = tempDir == null ? Files.createTempFile("multipart", ".part") : Files.createTempFile(tempDir.toPath(), "multipart", ".part");
+				file    = path.toFile();
+				channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+				var buf = ByteBuffer.wrap(memory.toByteArray());
+				while (buf.hasRemaining()) channel.write(buf);
+				memory = null;
+			}
+			if (channel == null) {
+				memory.write(buffer, pos, length);
+			} else {
+				var buf = ByteBuffer.wrap(buffer, pos, length);
+				while (buf.hasRemaining()) channel.write(buf);
+			}
+			pos += length;
+		}
+	}
+
+	private boolean fill() throws IOException {
+		if (eof) return false;
+		if (pos > 0) {
+			System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+			limit -= pos;
+			pos    = 0;
+		}
+		var read = in.read(buffer, limit, buffer.length - limit);
+		if (read < 0) {
+			eof = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	private int indexOfDelimiter() {
+		var first = delimiter[0];
+		var last  = limit - delimiter.length;
+		outer:
+		for (int i = pos; i <= last; i++) {
+			if (buffer[i] != first) continue;
+			for (int j = 1; j < delimiter.length; j++) {
+				if (buffer[i + j] != delimiter[j]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * get the value of a header parameter. Quoted values may contain semicolons and backslash escapes, like in <code>filename="a;b.pdf"</code>
+	 */
+	private static String parameter(String header, String name) {
+		var len   = header.length();
+		var start = 0;
+		while (start < len) {
+			var eq   = header.indexOf('=', start);
+			var semi = header.indexOf(';', start);
+			if (eq < 0) return null;
+			if (semi >= 0 && semi < eq) { // token without value
+				start = semi + 1;
+				continue;
+			}
+			var key = header.substring(start, eq).strip();
+			var i   = eq + 1;
+			while (i < len && Character.isWhitespace(header.charAt(i))) i++;
+			String value;
+			if (i < len && header.charAt(i) == '"') {
+				var sb = new StringBuilder();
+				for (i++; i < len && header.charAt(i) != '"'; i++) {
+					var c = header.charAt(i);
+					if (c == '\\' && i + 1 < len) c = header.charAt(++i);
+					sb.append(c);
+				}
+				value = sb.toString();
+				semi  = header.indexOf(';', i);
+			} else {
+				semi  = header.indexOf(';', i);
+				value = header.substring(i, semi < 0 ? len : semi).strip();
+			}
+			if (key.equalsIgnoreCase(name)) return value;
+			if (semi < 0) break;
+			start = semi + 1;
+		}
+		return null;
+	}
+
+	private void readBoundaryEnd() throws IOException {
+		while (limit - pos < 2) {
+			if (!fill()) throw new EOFException("Unexpected end of multipart body");
+		}
+		if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+			finished = true;
+			return;
+		}
+		readLine(); // rest of the boundary line, may contain transport padding
+	}
+
+	private Map<String, String> readHeaders() throws IOException {
+		var headers = new LinkedHashMap<String, String>();
+		var size    = 0;
+		for (var line = readLine(); !line.isEmpty(); line = readLine()) {
+			size += line.length();
+			if (size > MAX_HEADER_SIZE) throw new LimitExceeded("Part headers exceed %d bytes".formatted(MAX_HEADER_SIZE));
+			var colon = line.indexOf(':');
+			if (colon > 0) headers.put(line.substring(0, colon).strip().toLowerCase(), line.substring(colon + 1).strip());
+		}
+		return headers;
+	}
+
+	private String readLine() throws IOException {
+		while (true) {
+			for (int i = pos; i < limit - 1; i++) {
+				if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+					var line = new String(buffer, pos, i - pos, UTF_8);
+					pos = i + 2;
+					return line;
+				}
+			}
+			if (limit - pos > MAX_HEADER_SIZE) throw new LimitExceeded("Line exceeds %d bytes".formatted(MAX_HEADER_SIZE));
+			if (!fill()) throw new EOFException("Unexpected end of multipart body");
+		}
+	}
+
+	/**
+	 * drop bytes, that are not part of any part, but count them against the total size
+	 */
+	private void skip(int length) throws LimitExceeded {
+		if (length <= 0) return;
+		total += length;
+		if (total > maxTotalSize) throw new LimitExceeded("Body exceeds %d bytes".formatted(maxTotalSize));
+		pos += length;
+	}
+
+	private void skipPreamble() throws IOException {
+		while (true) {
+			var index = indexOfDelimiter();
+			if (index >= 0) {
+				skip(index - pos);
+				pos += delimiter.length;
+				break;
+			}
+			skip(limit - delimiter.length + 1 - pos);
+			if (!fill()) throw new EOFException("No boundary found in multipart body");
+		}
+		readBoundaryEnd();
+	}
+}
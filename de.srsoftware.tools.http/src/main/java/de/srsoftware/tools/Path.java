@@ -4,73 +4,145 @@ package de.srsoftware.tools;
 import static java.net.URLDecoder.decode;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.util.Stack;
-
 /**
- * This class represents a path given in an http request as stack of strings.
+ * This class represents a path given in an http request as a cursor over its slash-separated segments.
+ * {@link #pop()} and {@link #peek()} return the segments from left to right, url-decoded.
+ * Segments are decoded at most once, the cache is shared between clones.
+ * Instances are not thread-safe.
  */
-public class Path extends Stack<String> {
+public class Path implements Cloneable {
+	private static final int[] NO_SEGMENTS = new int[0];
+
+	private final String   source;
+	private final int[]    bounds;  // start and end index of every segment within the source
+	private final String[] decoded; // decoded segments, filled on first access
+	private int            cursor;  // index of the next segment
 
-	private Path(){
-		// discourage constructor
+	private Path(String source, int[] bounds, String[] decoded, int cursor) {
+		this.source  = source;
+		this.bounds  = bounds;
+		this.decoded = decoded;
+		this.cursor  = cursor;
 	}
 
+	/**
+	 * create an independent cursor at the same position. The underlying segments are shared, so this is a constant-time operation.
+	 * @return the clone
+	 */
 	@Override
-	public synchronized Path clone() {
-		var clone = new Path();
-		clone.addAll(this);
-		return clone;
+	public Path clone() {
+		return new Path(source, bounds, decoded, cursor);
 	}
 
 	/**
-	 * checks whether this path ends with the given string
+	 * checks whether the next segment of this path ends with the given string
 	 * @param s the string to compare to
-	 * @return true, only if the last component of this path stack ends with the given string
+	 * @return true, only if the path is not empty and its next segment ends with the given string
 	 */
 	public boolean endsWith(String s){
-		return get(size()-1).endsWith(s);
+		return !isEmpty() && segment(cursor).endsWith(s);
 	}
 
 	/**
 	 * checks, whether this path equals the given string
 	 * @param s the string to compare against
-	 * @return true only if the path has exactly one component and that component matches s
+	 * @return true only if the path has exactly one remaining segment and that segment matches s
 	 */
 	public boolean equals(String s){
-		return size() == 1 && get(0).equals(s);
+		return size() == 1 && segment(cursor).equals(s);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		return o instanceof Path other && toString().equals(other.toString());
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	/**
+	 * checks, whether all segments have been consumed
+	 * @return true, if there are no more segments
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
 	}
 
 	/**
-	 * create a new String stack from a given path
-	 * @param requestPath the path to parse into the stack
-	 * @return the stack consisting of the slash-separated tokens of the input
+	 * create a new path cursor from a given path
+	 * @param requestPath the path to parse
+	 * @return the cursor over the slash-separated segments of the input
 	 */
 	public static Path of(String requestPath) {
-		var path = new Path();
-		if (requestPath == null || requestPath.isBlank()) return  path;
-		var parts = requestPath.split("/");
-		for (int i=parts.length-1; i>-1; i--) {
-			if (i>0 || !parts[i].isBlank())	path.push(parts[i]);
+		if (requestPath == null || requestPath.isBlank()) return new Path("", NO_SEGMENTS, new String[0], 0);
+		int length = requestPath.length();
+		while (length > 0 && requestPath.charAt(length - 1) == '/') length--; // trailing empty segments are dropped
+		int count = 1;
+		for (int i = 0; i < length; i++) {
+			if (requestPath.charAt(i) == '/') count++;
+		}
+		var bounds = new int[2 * count];
+		int index  = 0;
+		for (int start = 0; start <= length; ) {
+			int end = requestPath.indexOf('/', start, length);
+			if (end < 0) end = length;
+			bounds[index++] = start;
+			bounds[index++] = end;
+			start = end + 1;
+		}
+		// a blank first segment, i.e. a leading slash, is dropped
+		int skip = 1;
+		for (int i = bounds[0]; i < bounds[1] && skip == 1; i++) {
+			if (!Character.isWhitespace(requestPath.charAt(i))) skip = 0;
 		}
-		return path;
+		return new Path(requestPath, bounds, new String[count], skip);
 	}
 
-	@Override
-	public synchronized String pop() {
-		if (isEmpty()) return null;
-		return decode(super.pop(), UTF_8);
+	/**
+	 * get the next segment without consuming it
+	 * @return the url-decoded segment, or null, if the path is empty
+	 */
+	public String peek() {
+		return isEmpty() ? null : segment(cursor);
 	}
 
-	@Override
-	public synchronized String peek() {
-		if (isEmpty()) return null;
-		return decode(super.peek(), UTF_8);
+	/**
+	 * consume the next segment
+	 * @return the url-decoded segment, or null, if the path is empty
+	 */
+	public String pop() {
+		return isEmpty() ? null : segment(cursor++);
 	}
 
+	private String segment(int index) {
+		var segment = decoded[index];
+		if (segment == null) {
+			int start = bounds[2 * index], end = bounds[2 * index + 1];
+			segment = source.substring(start, end);
+			if (segment.indexOf('%') >= 0 || segment.indexOf('+') >= 0) segment = decode(segment, UTF_8);
+			decoded[index] = segment;
+		}
+		return segment;
+	}
+
+	/**
+	 * the number of remaining segments
+	 * @return the number of segments, that have not been consumed yet
+	 */
+	public int size() {
+		return bounds.length / 2 - cursor;
+	}
+
+	/**
+	 * the remaining segments, as given in the request (i.e. not url-decoded)
+	 * @return the remaining segments separated by slashes, or "/" if the path is empty
+	 */
 	@Override
-	public synchronized String toString() {
-		StringBuilder sb = new StringBuilder();
-		for (int i = size(); i>0; i--) sb.append("/").append(get(i-1));
-		return sb.isEmpty() ? "/" : sb.substring(1);
+	public String toString() {
+		if (isEmpty()) return "/";
+		return source.substring(bounds[2 * cursor], bounds[bounds.length - 1]);
 	}
 }
@@ -3,13 +3,14 @@ package de.srsoftware.tools; /* © SRSoftware 2024 */
 
 
 import static de.srsoftware.tools.MimeType.MIME_JSON;
+import static de.srsoftware.tools.MimeType.MIME_NDJSON;
 import static de.srsoftware.tools.Optionals.nullable;
 import static java.lang.System.Logger.Level.*;
 import static java.net.HttpURLConnection.*;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Optional.empty;
-import static java.util.function.Predicate.not;
 
+import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
@@ -17,25 +18,44 @@ import com.sun.net.httpserver.HttpsExchange;
 import de.srsoftware.tools.container.Error;
 import de.srsoftware.tools.container.Payload;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
-import org.json.JSONArray;
+import java.util.zip.CRC32C;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 import org.json.JSONObject;
 
 /**
  * implementation of HttpHandler that attaches to a given path
  */
 public abstract class PathHandler implements HttpHandler {
-	/** "Authorization" **/   public static final String AUTHORIZATION    = "Authorization";
-	/** "Content-Type" **/    public static final String CONTENT_TYPE     = "Content-Type";
-	/** DELETE **/            public static final String DELETE           = "DELETE";
-	/** x-forwarded-host **/  public static final String FORWARDED_HOST   = "x-forwarded-host";
-	/** X-forwarded-proto **/ public static final String FORWARDED_PROTO  = "X-forwarded-proto";
-	/** GET **/               public static final String GET	          = "GET";
-	/** host **/              public static final String HOST             = "host";
-	/** OPTIONS **/           public static final String OPTIONS          = "OPTIONS";
-	/** PATCH **/             public static final String PATCH            = "PATCH";
-	/** POST **/              public static final String POST             = "POST";
+	/** "Accept" **/           public static final String ACCEPT           = "Accept";
+	/** "Accept-Encoding" **/  public static final String ACCEPT_ENCODING  = "Accept-Encoding";
+	/** "Authorization" **/    public static final String AUTHORIZATION    = "Authorization";
+	/** "Content-Encoding" **/ public static final String CONTENT_ENCODING = "Content-Encoding";
+	/** "Content-Length" **/   public static final String CONTENT_LENGTH   = "Content-Length";
+	/** "Content-Type" **/     public static final String CONTENT_TYPE     = "Content-Type";
+	/** "Cookie" **/           public static final String COOKIE           = "Cookie";
+	/** deflate **/            public static final String DEFLATE          = "deflate";
+	/** DELETE **/             public static final String DELETE           = "DELETE";
+	/** "ETag" **/             public static final String ETAG             = "ETag";
+	/** x-forwarded-host **/   public static final String FORWARDED_HOST   = "x-forwarded-host";
+	/** X-forwarded-proto **/  public static final String FORWARDED_PROTO  = "X-forwarded-proto";
+	/** GET **/                public static final String GET	           = "GET";
+	/** gzip **/               public static final String GZIP             = "gzip";
+	/** HEAD **/               public static final String HEAD             = "HEAD";
+	/** host **/               public static final String HOST             = "host";
+	/** "If-None-Match" **/    public static final String IF_NONE_MATCH    = "If-None-Match";
+	/** OPTIONS **/            public static final String OPTIONS          = "OPTIONS";
+	/** PATCH **/              public static final String PATCH            = "PATCH";
+	/** POST **/               public static final String POST             = "POST";
+	/** "Vary" **/             public static final String VARY             = "Vary";
+
+	/** default limit for {@link #etags(boolean)} **/ public static final int DEFAULT_ETAG_LIMIT = 1 << 16;
 
 	/** System Logger **/    public System.Logger LOG	                 = System.getLogger(getClass().getSimpleName());
 
@@ -47,6 +67,26 @@ public abstract class PathHandler implements HttpHandler {
 	}
 
 	private String[] paths;
+	private final Router<Route> router               = new Router<>();
+	int                         compressionThreshold = 1024;
+	private Duration            flushInterval        = Duration.ofMillis(200);
+	int                         etagLimit            = 0; // bytes, 0 = no entity tags
+	ResponseCache               cache                = null;
+
+	/**
+	 * handler for a route registered via {@link Bond#route(String, String, Route)}
+	 */
+	@FunctionalInterface
+	public interface Route {
+		/**
+		 * handle a request matching the route
+		 * @param match the match, providing access to the path parameters
+		 * @param ex the HttpExchange to process
+		 * @return a boolean that is ignored
+		 * @throws IOException if sending the response fails
+		 */
+		boolean handle(Router.Match<Route> match, HttpExchange ex) throws IOException;
+	}
 
 	/**
 	 * Object to hold auth data
@@ -69,14 +109,91 @@ public abstract class PathHandler implements HttpHandler {
 		}
 
 		/**
-		 * create a context on the server object for every path stored in this Bond
+		 * register a DELETE route
+		 * @param pattern the path pattern, relative to the bound paths, see {@link Router}
+		 * @param route the handler of the route
+		 * @return this bond
+		 */
+		public Bond delete(String pattern, Route route) {
+			return route(DELETE, pattern, route);
+		}
+
+		/**
+		 * register a GET route
+		 * @param pattern the path pattern, relative to the bound paths, see {@link Router}
+		 * @param route the handler of the route
+		 * @return this bond
+		 */
+		public Bond get(String pattern, Route route) {
+			return route(GET, pattern, route);
+		}
+
+		/**
+		 * register a PATCH route
+		 * @param pattern the path pattern, relative to the bound paths, see {@link Router}
+		 * @param route the handler of the route
+		 * @return this bond
+		 */
+		public Bond patch(String pattern, Route route) {
+			return route(PATCH, pattern, route);
+		}
+
+		/**
+		 * register a POST route
+		 * @param pattern the path pattern, relative to the bound paths, see {@link Router}
+		 * @param route the handler of the route
+		 * @return this bond
+		 */
+		public Bond post(String pattern, Route route) {
+			return route(POST, pattern, route);
+		}
+
+		/**
+		 * register a route. Requests matching a route are passed to the route instead of doGet(…), doPost(…) etc.
+		 * @param method the http method of the route
+		 * @param pattern the path pattern, relative to the bound paths, see {@link Router}
+		 * @param route the handler of the route
+		 * @return this bond
+		 */
+		public Bond route(String method, String pattern, Route route) {
+			router.add(method, pattern, route);
+			return this;
+		}
+
+		/**
+		 * create a context on the server object for every path stored in this Bond.
+		 * If the server has no executor yet and has not been started, a {@link RequestExecutor} is installed, so requests are handled on virtual threads.
+		 * A running server keeps its executor.
 		 * @param server the server to bind to
 		 * @return this PathHandler object
 		 */
 		public PathHandler on(HttpServer server) {
+			if (server.getExecutor() == null) {
+				try {
+					server.setExecutor(RequestExecutor.virtual());
+				} catch (IllegalStateException e) {
+					PathHandler.this.LOG.log(DEBUG, "Server is already running, keeping its default executor");
+				}
+			}
+			return bind(server);
+		}
+
+		/**
+		 * create a context on the server object for every path stored in this Bond and use the given executor to handle requests
+		 * @param server the server to bind to, must not be started yet
+		 * @param executor the executor to handle requests with, e.g. {@link RequestExecutor#bounded(int, int)}
+		 * @return this PathHandler object
+		 * @throws IllegalStateException if the server has already been started
+		 */
+		public PathHandler on(HttpServer server, Executor executor) {
+			server.setExecutor(executor);
+			return bind(server);
+		}
+
+		private PathHandler bind(HttpServer server) {
 			var ph = PathHandler.this;
 			for (var path : paths) {
-				server.createContext(path, PathHandler.this);
+				RequestExecutor.guard(server.createContext(path, PathHandler.this));
 				ph.LOG.log(INFO,"Binding {0} to {1}.",ph.getClass().getSimpleName(),path);
 			}
 			return ph;
@@ -135,6 +252,59 @@ public abstract class PathHandler implements HttpHandler {
 		return new Bond(path);
 	}
 
+	/**
+	 * serve GET requests from a response cache
+	 * @param cache the cache, null to disable caching
+	 * @return this handler
+	 */
+	public PathHandler cache(ResponseCache cache) {
+		this.cache = cache;
+		return this;
+	}
+
+	/**
+	 * set the minimum size of responses, that are compressed, if the client accepts gzip or deflate encoding
+	 * @param bytes the minimum number of bytes, a negative value disables compression
+	 * @return this PathHandler
+	 */
+	public PathHandler compressAbove(int bytes) {
+		compressionThreshold = bytes;
+		return this;
+	}
+
+	/**
+	 * enable or disable entity tags with a limit of {@value #DEFAULT_ETAG_LIMIT} bytes, see {@link #etags(int)}
+	 * @param enabled whether to compute entity tags, disabled by default
+	 * @return this handler
+	 */
+	public PathHandler etags(boolean enabled) {
+		return etags(enabled ? DEFAULT_ETAG_LIMIT : 0);
+	}
+
+	/**
+	 * enable entity tags for bodies up to the given size.
+	 * Successful responses to GET and HEAD requests then carry an <em>ETag</em> derived from a checksum of the body.
+	 * If the client already has the same body, 304 Not Modified is sent without the body.
+	 * To compute the tag, the body is held in memory before the headers are sent, so responses up to the limit are not streamed.
+	 * Larger bodies and {@link #sendStream(HttpExchange, int, Stream) streams}, that are flushed before their end, are sent without a tag.
+	 * @param maxBytes the maximum size of tagged bodies, 0 disables entity tags
+	 * @return this handler
+	 */
+	public PathHandler etags(int maxBytes) {
+		etagLimit = Math.max(maxBytes, 0);
+		return this;
+	}
+
+	/**
+	 * set the maximum time elements of a streamed response are held back, before they are sent to the client
+	 * @param interval the flush interval
+	 * @return this PathHandler
+	 */
+	public PathHandler flushEvery(Duration interval) {
+		flushInterval = interval;
+		return this;
+	}
+
 	/**
 	 * "not found" default implementation
 	 * @param path ignored
@@ -192,8 +362,26 @@ public abstract class PathHandler implements HttpHandler {
 
 	@Override
 	public void handle(HttpExchange ex) throws IOException {
-		Path path   = relativePath(ex);
-		String method = ex.getRequestMethod();
+		RequestContext.attach(ex);
+		try {
+			if (cache == null || !cache.handle(ex, this)) dispatch(ex);
+		} finally {
+			RequestContext.detach(ex);
+		}
+	}
+
+	void dispatch(HttpExchange ex) throws IOException {
+		String method   = ex.getRequestMethod();
+		String relative = relativePathString(ex);
+		var    match    = router.match(method, relative);
+		if (match != null) {
+			LOG.log(INFO, "{0} {1}", method, relative);
+			match.handler().handle(match, ex);
+			ex.getRequestBody().close();
+			ex.getResponseBody().close();
+			return;
+		}
+		Path path = Path.of(relative);
 		LOG.log(INFO, "{0} {1}", method, path);
 		boolean ignored = switch (method) {
 			case DELETE -> doDelete(path,ex);
@@ -226,28 +414,78 @@ public abstract class PathHandler implements HttpHandler {
 	 * @return the path object
 	 */
 	public Path relativePath(HttpExchange ex) {
+		return Path.of(relativePathString(ex));
+	}
+
+	private String relativePathString(HttpExchange ex) {
 		var requestPath = ex.getRequestURI().toString();
-		for (var path : paths){
-			if (requestPath.startsWith(path)) {
-				requestPath = requestPath.substring(path.length());
-				break;
+		var context     = ex.getHttpContext();
+		var contextPath = context == null ? null : context.getPath();
+		if (contextPath != null && requestPath.startsWith(contextPath)) {
+			// the server already selected the context, no need to test all bound paths
+			requestPath = requestPath.substring(contextPath.length());
+		} else {
+			for (var path : paths) {
+				if (requestPath.startsWith(path)) {
+					requestPath = requestPath.substring(path.length());
+					break;
+				}
 			}
 		}
-		var pos = requestPath.indexOf("?");
-		if (pos >= 0) requestPath = requestPath.substring(0, pos);
-		return Path.of(requestPath);
+		var pos = requestPath.indexOf('?');
+		return pos < 0 ? requestPath : requestPath.substring(0, pos);
 	}
 
 	/******* begin of static methods *************/
 
 	/**
-	 * extracts the body of an HttpExchange
+	 * checks, whether the client accepts the given mime type, according to the <em>Accept</em> header
+	 * @param ex the exchange to process
+	 * @param mime the mime type, e.g. application/json
+	 * @return true, if the mime type is explicitly listed in the header with a quality above zero
+	 */
+	public static boolean accepts(HttpExchange ex, String mime) {
+		var header = getHeader(ex, ACCEPT).orElse(null);
+		if (header == null) return false;
+		for (var token : header.split(",")) {
+			var parts = token.split(";");
+			if (!parts[0].strip().equalsIgnoreCase(mime)) continue;
+			for (int i = 1; i < parts.length; i++) {
+				var param = parts[i].strip();
+				if (param.startsWith("q=") && parseQuality(param.substring(2)) <= 0) return false;
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * extracts the body of an HttpExchange. The body is read once per exchange, see {@link RequestContext}
 	 * @param ex the exchange to process
 	 * @return the content of the HttpExchange
 	 * @throws IOException if reading the body failed
 	 */
 	public static String body(HttpExchange ex) throws IOException {
-		return new String(ex.getRequestBody().readAllBytes(), UTF_8);
+		return RequestContext.of(ex).body();
+	}
+
+	/**
+	 * provides the body of an HttpExchange, decoding it, if it was sent with gzip or deflate content encoding
+	 * @param ex the exchange to process
+	 * @return a stream of the decoded body
+	 * @throws IOException if the body is not properly encoded
+	 */
+	public static InputStream bodyStream(HttpExchange ex) throws IOException {
+		return RequestContext.of(ex).bodyStream();
+	}
+
+	static InputStream decode(HttpExchange ex) throws IOException {
+		var in = ex.getRequestBody();
+		return switch (getHeader(ex, CONTENT_ENCODING).map(String::strip).map(String::toLowerCase).orElse("")) {
+			case GZIP, "x-gzip" -> new GZIPInputStream(in);
+			case DEFLATE -> new InflaterInputStream(in);
+			default -> in;
+		};
 	}
 
 	/**
@@ -261,13 +499,15 @@ public abstract class PathHandler implements HttpHandler {
 	}
 
 	/**
-	 * fetches data from an form-urlencoded message body
+	 * fetches data from an form-urlencoded or multipart/form-data message body.
+	 * For multipart bodies, uploaded files are mapped to {@link MultipartParser.Part}s, which should be closed after processing.
+	 * Use {@link MultipartParser#of(HttpExchange)} directly to process large uploads part by part or to set limits.
 	 * @param ex the exchange whose content type is to be evaluated
 	 * @return a data map representing the form data
 	 * @throws IOException if the data cannot be read
 	 */
 	public static Map<String, Object> formData(HttpExchange ex) throws IOException {
-		return Query.decode(body(ex));
+		return RequestContext.of(ex).formData();
 	}
 
 	/**
@@ -285,14 +525,7 @@ public abstract class PathHandler implements HttpHandler {
 	 * @return an optional containing the basic auth data, of such a header is present. empty otherwise.
 	 */
 	public static Optional<BasicAuth> getBasicAuth(HttpExchange ex) {
-		return getAuthToken(ex)
-			.filter(token -> token.startsWith("Basic "))  //
-			.map(token -> token.substring(6))
-			.map(Base64.getDecoder()::decode)
-			.map(bytes -> new String(bytes, UTF_8))
-			.map(token -> token.split(":", 2))
-			.filter(arr -> arr.length == 2)
-			.map(arr -> new BasicAuth(arr[0], arr[1]));
+		return RequestContext.of(ex).basicAuth();
 	}
 
 	/**
@@ -334,7 +567,7 @@ public abstract class PathHandler implements HttpHandler {
 	 * @throws IOException if anything bad happens
 	 */
 	public static JSONObject json(HttpExchange ex) throws IOException {
-		return new JSONObject(body(ex));
+		return RequestContext.of(ex).json();
 	}
 
 	/**
@@ -343,12 +576,7 @@ public abstract class PathHandler implements HttpHandler {
 	 * @return the set of languages passed via header
 	 */
 	public static List<String> languages(HttpExchange ex) {
-		return getHeader(ex, "Accept-Language")
-			.map(s -> s.split(","))
-			.stream()
-			.flatMap(Arrays::stream)
-			.filter(not(String::isBlank))
-			.toList();
+		return RequestContext.of(ex).languages();
 	}
 
 	/**
@@ -368,7 +596,7 @@ public abstract class PathHandler implements HttpHandler {
 	 * @return the query parameters as key → value map
 	 */
 	public static Map<String, Object> queryParam(HttpExchange ex) {
-		return Query.decode(ex.getRequestURI().getQuery());
+		return RequestContext.of(ex).queryParam();
 	}
 
 	/**
@@ -405,11 +633,166 @@ public abstract class PathHandler implements HttpHandler {
 	 */
 	public boolean sendContent(HttpExchange ex, int status, byte[] bytes) throws IOException {
 		LOG.log(DEBUG, "sending {0} response…", status);
-		ex.sendResponseHeaders(status, bytes.length);
-		ex.getResponseBody().write(bytes);
+		ResponseCache.capture(ex, status, bytes, bytes.length);
+		var encoding = compressionThreshold < 0 || bytes.length < compressionThreshold ? null : contentEncoding(ex);
+		if (bytes.length <= etagLimit && notModified(ex, status, bytes, bytes.length, encoding)) return true;
+		if (encoding == null) {
+			ex.sendResponseHeaders(status, bytes.length);
+			ex.getResponseBody().write(bytes);
+			return true;
+		}
+		try (var out = new ResponseStream(ex, status, encoding, compressionThreshold, 0)) {
+			out.write(bytes);
+		}
+		return true;
+	}
+
+	/**
+	 * checks, whether one of the entity tags in the <em>If-None-Match</em> header of the request matches the given tag
+	 * @param ex the exchange to process
+	 * @param etag the quoted entity tag of the current representation
+	 * @return true, if the client already has the representation
+	 */
+	static boolean etagMatches(HttpExchange ex, String etag) {
+		var ifNoneMatch = getHeader(ex, IF_NONE_MATCH).orElse(null);
+		if (ifNoneMatch == null) return false;
+		for (var tag : ifNoneMatch.split(",")) {
+			tag = tag.strip();
+			if (tag.startsWith("W/")) tag = tag.substring(2); // If-None-Match uses weak comparison
+			if (tag.equals("*") || tag.equals(etag)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * compute a strong entity tag from the length and a checksum of a body
+	 * @param body the buffer holding the uncompressed body
+	 * @param length the length of the body
+	 * @param encoding the content encoding, that will be applied to the body, or null
+	 * @return the quoted entity tag
+	 */
+	static String etag(byte[] body, int length, String encoding) {
+		var crc = new CRC32C();
+		crc.update(body, 0, length);
+		var sb = new StringBuilder(32).append('"').append(Integer.toHexString(length)).append('-').append(Long.toHexString(crc.getValue()));
+		if (encoding != null) sb.append('-').append(encoding); // every encoding is a representation of its own
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * set the <em>ETag</em> of a successful GET or HEAD response – unless the handler already set one – and send 304 Not Modified, if the client has the same representation
+	 * @param ex the exchange to respond to
+	 * @param status the status of the response
+	 * @param body the buffer holding the response body
+	 * @param length the length of the body
+	 * @param encoding the content encoding, that will be applied to the body, or null
+	 * @return true, if a 304 response has been sent
+	 * @throws IOException if sending the response fails
+	 */
+	static boolean notModified(HttpExchange ex, int status, byte[] body, int length, String encoding) throws IOException {
+		if (status != HTTP_OK) return false;
+		var method = ex.getRequestMethod();
+		if (!GET.equals(method) && !HEAD.equals(method)) return false;
+		var headers = ex.getResponseHeaders();
+		var etag    = headers.getFirst(ETAG);
+		if (etag == null) headers.set(ETAG, etag = etag(body, length, encoding));
+		if (!etagMatches(ex, etag)) return false;
+		ex.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
 		return true;
 	}
 
+	/**
+	 * Short-circuit for handlers, that know the version of a resource before building the response, e.g. from a modification counter:
+	 * sets the <em>ETag</em> header to the version and sends 304 Not Modified, if the client already has this version.
+	 * <pre>if (sendNotModified(ex, version)) return true;</pre>
+	 * Otherwise, the handler continues building the response; the ETag header is kept.
+	 * @param ex the exchange to respond to
+	 * @param version the version of the resource, quoted or not
+	 * @return true, if a 304 response has been sent
+	 * @throws IOException if sending the response fails
+	 */
+	public static boolean sendNotModified(HttpExchange ex, String version) throws IOException {
+		var etag = version.startsWith("\"") ? version : "\"" + version + "\"";
+		ex.getResponseHeaders().set(ETAG, etag);
+		if (!etagMatches(ex, etag)) return false;
+		ex.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+		return true;
+	}
+
+	/**
+	 * add Accept-Encoding to the <em>Vary</em> header of the response, unless it is already listed
+	 * @param headers the response headers
+	 */
+	static void varyOnEncoding(Headers headers) {
+		varyOn(headers, ACCEPT_ENCODING);
+	}
+
+	/**
+	 * add a request header to the <em>Vary</em> header of the response, unless it is already listed
+	 * @param headers the response headers
+	 * @param header the name of the request header, the response depends on
+	 */
+	static void varyOn(Headers headers, String header) {
+		var vary = headers.get(VARY);
+		if (vary != null) {
+			for (var value : vary) {
+				for (var name : value.split(",")) {
+					if (name.strip().equalsIgnoreCase(header)) return;
+				}
+			}
+		}
+		headers.add(VARY, header);
+	}
+
+	/**
+	 * select the encoding for the response, based on the <em>Accept-Encoding</em> header of the request and the content type of the response
+	 * @param ex the HttpExchange to respond to
+	 * @return gzip, deflate or null, if the response should not be compressed
+	 */
+	static String contentEncoding(HttpExchange ex) {
+		if (ex.getResponseHeaders().containsKey(CONTENT_ENCODING) || isCompressed(ex.getResponseHeaders().getFirst(CONTENT_TYPE))) return null;
+		var accepted = getHeader(ex, ACCEPT_ENCODING).orElse(null);
+		if (accepted == null) return null;
+		Float gzip = null, deflate = null, any = null;
+		for (var token : accepted.split(",")) {
+			var parts   = token.split(";");
+			var quality = 1f;
+			for (int i = 1; i < parts.length; i++) {
+				var param = parts[i].strip();
+				if (param.startsWith("q=")) quality = parseQuality(param.substring(2));
+			}
+			switch (parts[0].strip().toLowerCase()) {
+				case GZIP, "x-gzip" -> gzip = quality;
+				case DEFLATE -> deflate = quality;
+				case "*" -> any = quality;
+				default -> {}
+			}
+		}
+		float g = gzip != null ? gzip : any != null ? any : 0;
+		float d = deflate != null ? deflate : any != null ? any : 0;
+		if (g > 0 && g >= d) return GZIP;
+		return d > 0 ? DEFLATE : null;
+	}
+
+	private static float parseQuality(String value) {
+		try {
+			return Float.parseFloat(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	static boolean isCompressed(String contentType) {
+		if (contentType == null) return false;
+		var mime = contentType.split(";", 2)[0].strip().toLowerCase();
+		if (mime.startsWith("image/")) return !mime.startsWith("image/svg");
+		if (mime.startsWith("audio/") || mime.startsWith("video/") || mime.startsWith("font/woff")) return true;
+		return switch (mime) {
+			case "application/zip", "application/gzip", "application/x-gzip", "application/x-bzip2", "application/x-7z-compressed", "application/x-rar-compressed", "application/x-xz", "application/zstd", "application/pdf" -> true;
+			default -> false;
+		};
+	}
+
 	/**
 	 * create a response given status code, send payload
 	 * @param ex the HttpExchange to write to
@@ -420,17 +803,98 @@ public abstract class PathHandler implements HttpHandler {
 	 */
 	public boolean sendContent(HttpExchange ex, int status, Object o) throws IOException {
 		if (o instanceof Payload<?> payload) o = payload.get();
-		if (o instanceof Stream<?> stream) o = stream.toList();
-		if (o instanceof Set<?> set) o = List.copyOf(set);
-		if (o instanceof List<?> list) o = new JSONArray(list);
-		if (o instanceof Mappable mappable) o = mappable.toMap();
-		if (o instanceof Map<?, ?> map) o = new JSONObject(map);
 		if (o instanceof HttpError<?> error) return sendContent(ex, error.code(), error.json());
 		if (o instanceof Error<?> error) return serverError(ex, error.json());
-		if (o instanceof JSONObject || o instanceof JSONArray) ex.getResponseHeaders().add(CONTENT_TYPE, MIME_JSON);
+		if (o instanceof Stream<?> stream) return sendStream(ex, status, stream);
+		if (JsonWriter.isStructure(o)) return sendJson(ex, status, o);
 		return sendContent(ex, status, o.toString().getBytes(UTF_8));
 	}
 
+	/**
+	 * serialize an object as JSON directly into the response body, see {@link JsonWriter}.
+	 * Characters are encoded into the pooled buffer of the response, bodies exceeding it are sent in chunks of the buffer size.
+	 * If serialization fails before the headers have been sent, nothing is sent and the exception is rethrown, so the caller may still send an error.
+	 * @param ex the HttpExchange to write to
+	 * @param status the status code
+	 * @param o the object to serialize
+	 * @return true – result is only created to allow return sendJson(…)
+	 * @throws IOException if writing to the HttpExchange object fails
+	 */
+	public boolean sendJson(HttpExchange ex, int status, Object o) throws IOException {
+		ex.getResponseHeaders().set(CONTENT_TYPE, MIME_JSON);
+		var out = openResponse(ex, status);
+		try {
+			var writer = out.writer();
+			JsonWriter.write(o, writer);
+			writer.close();
+		} catch (IOException | RuntimeException e) {
+			out.abort();
+			throw e;
+		}
+		return true;
+	}
+
+	/**
+	 * send the elements of a stream as they are produced: as newline delimited JSON, if the client accepts application/x-ndjson, as JSON array otherwise.
+	 * Buffered elements are sent at least every {@link #flushEvery(Duration) flush interval}.
+	 * The stream is closed after the last element has been sent or if sending fails, e.g. because the client disconnected or an element cannot be serialized.
+	 * A failure is rethrown: if the headers have not been sent yet, nothing is sent, otherwise the response is left incomplete.
+	 * @param ex the HttpExchange to write to
+	 * @param status the status code
+	 * @param stream the elements to send
+	 * @return true – result is only created to allow return sendStream(…)
+	 * @throws IOException if writing to the HttpExchange object fails
+	 */
+	public boolean sendStream(HttpExchange ex, int status, Stream<?> stream) throws IOException {
+		var ndjson  = accepts(ex, MIME_NDJSON);
+		var headers = ex.getResponseHeaders();
+		headers.set(CONTENT_TYPE, ndjson ? MIME_NDJSON : MIME_JSON);
+		varyOn(headers, ACCEPT); // the format is negotiated
+		var out      = openResponse(ex, status);
+		var interval = flushInterval.toNanos();
+		var count    = 0L;
+		try (stream) {
+			var writer    = out.writer();
+			var lastFlush = System.nanoTime();
+			if (!ndjson) writer.write('[');
+			for (var it = stream.iterator(); it.hasNext(); count++) {
+				var element = it.next();
+				if (count > 0 && !ndjson) writer.write(',');
+				JsonWriter.write(element, writer);
+				if (ndjson) writer.write('\n');
+				if (System.nanoTime() - lastFlush >= interval) {
+					out.push();
+					lastFlush = System.nanoTime();
+				}
+			}
+			if (!ndjson) writer.write(']');
+			stream.close(); // release the source before the response completes
+			writer.close();
+		} catch (IOException | RuntimeException e) {
+			out.abort();
+			LOG.log(DEBUG, "Streaming aborted after {0} elements: {1}", count, e.getMessage());
+			throw e;
+		}
+		return true;
+	}
+
+	/**
+	 * open a stream for a response body of unknown length.
+	 * Small bodies are sent with a content length, larger bodies are sent chunked and compressed, if the client accepts it.
+	 * The <em>Content-Type</em> header should be set before calling this method.
+	 * @param ex the HttpExchange to respond to
+	 * @param status the status code
+	 * @return the stream to write the body to. It must be closed to complete the response.
+	 */
+	public OutputStream responseStream(HttpExchange ex, int status) {
+		return openResponse(ex, status);
+	}
+
+	private ResponseStream openResponse(HttpExchange ex, int status) {
+		var encoding = compressionThreshold < 0 ? null : contentEncoding(ex);
+		return new ResponseStream(ex, status, encoding, Math.max(compressionThreshold, 0), etagLimit);
+	}
+
 
 	/**
 	 * send an array of bytes
@@ -20,51 +20,104 @@ public class Query {
 	}
 
 	/**
-	 * Transform an encoded query string into a map
+	 * Transform an encoded query string into a map.
+	 * Keys without value (<code>a&amp;b=1</code>) are mapped to the empty string.
 	 * @param query serialized URL-encoded data
 	 * @return a map of the decoded data
+	 * @throws IllegalArgumentException if the query contains malformed escape sequences
 	 */
 	public static Map<String,Object> decode(String query){
 		var map = new LinkedHashMap<String,Object>();
 		if (query == null) return map;
-		var parts = query.split("&");
-		for (var part : parts){
-			var keyVal = part.split("=",2);
-			var key = URLDecoder.decode(keyVal[0], UTF_8);
-			var val = URLDecoder.decode(keyVal[1], UTF_8);
-			insertInto(map,key,val);
+		int length = query.length();
+		for (int start = 0; start < length; ) {
+			int end = query.indexOf('&', start);
+			if (end < 0) end = length;
+			if (end > start) {
+				int eq = query.indexOf('=', start, end);
+				var key = decode(query, start, eq < 0 ? end : eq);
+				insertInto(map, key, eq < 0 ? "" : decode(query, eq + 1, end));
+			}
+			start = end + 1;
 		}
 		return map;
 	}
 
-	@SuppressWarnings("unchecked")
-	private static void insertInto(HashMap<String, Object> map, String key, String value) {
-		var parts = key.split("\\[|]\\[|]");
-		Map<String, Object> current = map;
-		for (int i = 0; i < parts.length; i++) {
-			if (parts[i].isEmpty()) continue;
-			if (i == parts.length - 1) {
-				// Letztes Element: Wert setzen
-				Object existing = current.get(parts[i]);
-				if (existing == null) {
-					current.put(parts[i], value);
-				} else if (existing instanceof List) {
-					((List<String>) existing).add(value);
-				} else {
-					List<String> list = new ArrayList<>();
-					list.add((String) existing);
-					list.add(value);
-					current.put(parts[i], list);
+	/**
+	 * URL-decode a section of a string, like {@link URLDecoder#decode(String, java.nio.charset.Charset)} with UTF-8 does.
+	 * Only allocates the resulting string, plus buffers, if the section contains escape sequences.
+	 */
+	private static String decode(String s, int from, int to) {
+		int i = from;
+		while (i < to && s.charAt(i) != '%' && s.charAt(i) != '+') i++;
+		if (i == to) return s.substring(from, to);
+		var sb = new StringBuilder(to - from).append(s, from, i);
+		byte[] bytes = null;
+		while (i < to) {
+			char c = s.charAt(i);
+			if (c == '+') {
+				sb.append(' ');
+				i++;
+			} else if (c == '%') {
+				// consecutive escapes form one UTF-8 sequence
+				if (bytes == null) bytes = new byte[(to - i) / 3];
+				int count = 0;
+				while (i < to && s.charAt(i) == '%') {
+					if (i + 2 >= to) throw new IllegalArgumentException("Incomplete trailing escape (%) pattern");
+					int high = Character.digit(s.charAt(i + 1), 16);
+					int low  = Character.digit(s.charAt(i + 2), 16);
+					if (high < 0 || low < 0) throw new IllegalArgumentException("Illegal hex characters in escape (%) pattern: " + s.substring(i, i + 3));
+					bytes[count++] = (byte)((high << 4) | low);
+					i += 3;
 				}
+				sb.append(new String(bytes, 0, count, UTF_8));
 			} else {
-				// Verschachtelung aufbauen
-				Object next = current.get(parts[i]);
-				if (!(next instanceof Map)) {
-					next = new LinkedHashMap<String, Object>();
-					current.put(parts[i], next);
+				sb.append(c);
+				i++;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * insert a value into a map. Keys like <code>a[b][c]</code> create nested maps, repeated keys create lists.
+	 * @param map the map to insert into
+	 * @param key the (possibly nested) key
+	 * @param value the value to insert
+	 */
+	@SuppressWarnings("unchecked")
+	static void insertInto(Map<String, Object> map, String key, Object value) {
+		Map<String, Object> current = map;
+		String              last    = null;
+		int                 length  = key.length();
+		for (int start = 0; start < length; ) {
+			int end = start;
+			while (end < length && key.charAt(end) != '[' && key.charAt(end) != ']') end++;
+			if (end > start) {
+				if (last != null) {
+					// nesting: descend into the map of the previous key part
+					Object next = current.get(last);
+					if (!(next instanceof Map)) {
+						next = new LinkedHashMap<String, Object>();
+						current.put(last, next);
+					}
+					current = (Map<String, Object>) next;
 				}
-				current = (Map<String, Object>) next;
+				last = start == 0 && end == length ? key : key.substring(start, end);
 			}
+			start = end + 1;
+		}
+		if (last == null) return;
+		Object existing = current.get(last);
+		if (existing == null) {
+			current.put(last, value);
+		} else if (existing instanceof List) {
+			((List<Object>) existing).add(value);
+		} else {
+			List<Object> list = new ArrayList<>();
+			list.add(existing);
+			list.add(value);
+			current.put(last, list);
 		}
 	}
 
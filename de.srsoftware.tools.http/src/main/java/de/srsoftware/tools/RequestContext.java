@@ -0,0 +1,199 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.MimeType.MIME_FORM_DATA;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.function.Predicate.not;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.json.JSONObject;
+
+/**
+ * Parsed view of a request: query, form data, json body, languages, cookies and basic auth are parsed lazily, at most once per exchange.
+ * While a {@link PathHandler} processes an exchange, {@link #of(HttpExchange)} returns the same context for every call,
+ * so handlers and their helpers may query it repeatedly, and the body can be read more than once.
+ * The returned maps and objects are shared between all callers of the exchange and should not be modified.
+ * Like the exchange itself, a context is meant to be used by one thread at a time.
+ */
+public class RequestContext {
+	// exchange attributes are shared by all exchanges of an HttpContext, so the contexts are kept here
+	private static final Map<HttpExchange, RequestContext> ACTIVE = new ConcurrentHashMap<>();
+
+	private final HttpExchange              ex;
+	private byte[]                          body;
+	private Optional<PathHandler.BasicAuth> basicAuth;
+	private Cookies                         cookies;
+	private Map<String, Object>             formData;
+	private JSONObject                      json;
+	private List<String>                    languages;
+	private Map<String, Object>             query;
+	ResponseCache.Capture                   capture; // set while the handler runs on a cache miss
+
+	private RequestContext(HttpExchange ex) {
+		this.ex = ex;
+	}
+
+	/**
+	 * register a context for the exchange, which is returned by {@link #of(HttpExchange)} until {@link #detach(HttpExchange)} is called
+	 * @param ex the exchange
+	 * @return the new context
+	 */
+	static RequestContext attach(HttpExchange ex) {
+		var context = new RequestContext(ex);
+		ACTIVE.put(ex, context);
+		return context;
+	}
+
+	/**
+	 * the basic auth data submitted with the request
+	 * @return an optional containing the basic auth data, of such a header is present. empty otherwise.
+	 */
+	public Optional<PathHandler.BasicAuth> basicAuth() {
+		if (basicAuth == null) {
+			basicAuth = PathHandler.getAuthToken(ex)
+				.filter(token -> token.startsWith("Basic "))
+				.map(token -> token.substring(6))
+				.map(Base64.getDecoder()::decode)
+				.map(bytes -> new String(bytes, UTF_8))
+				.map(token -> token.split(":", 2))
+				.filter(arr -> arr.length == 2)
+				.map(arr -> new PathHandler.BasicAuth(arr[0], arr[1]));
+		}
+		return basicAuth;
+	}
+
+	/**
+	 * the body of the request, decoded from gzip or deflate content encoding
+	 * @return the body, as UTF-8 string
+	 * @throws IOException if reading the body fails
+	 */
+	public String body() throws IOException {
+		return new String(bodyBytes(), UTF_8);
+	}
+
+	/**
+	 * the body of the request, decoded from gzip or deflate content encoding. It is read from the exchange on the first call and kept in memory.
+	 * @return the body
+	 * @throws IOException if reading the body fails
+	 */
+	public byte[] bodyBytes() throws IOException {
+		if (body == null) {
+			try (var in = PathHandler.decode(ex)) {
+				body = in.readAllBytes();
+			}
+		}
+		return body;
+	}
+
+	/**
+	 * provides the body of the request. If the body was already read, its buffered content is provided, otherwise the decoded request stream.
+	 * @return a stream of the decoded body
+	 * @throws IOException if the body is not properly encoded
+	 */
+	public InputStream bodyStream() throws IOException {
+		return body == null ? PathHandler.decode(ex) : new ByteArrayInputStream(body);
+	}
+
+	/**
+	 * the cookies submitted with the request
+	 * @return the name → value view of the cookies
+	 */
+	public Cookies cookies() {
+		if (cookies == null) cookies = Cookies.of(ex);
+		return cookies;
+	}
+
+	/**
+	 * close the uploaded parts found among the values, descending into nested lists and maps
+	 */
+	private static void close(Collection<?> values) {
+		for (var value : values) {
+			if (value instanceof MultipartParser.Part part) {
+				part.close();
+			} else if (value instanceof Map<?, ?> map) {
+				close(map.values());
+			} else if (value instanceof Collection<?> collection) {
+				close(collection);
+			}
+		}
+	}
+
+	/**
+	 * unregister the context of the exchange and delete the temporary files of uploaded parts
+	 * @param ex the exchange
+	 */
+	static void detach(HttpExchange ex) {
+		var context = ACTIVE.remove(ex);
+		if (context != null && context.formData != null) close(context.formData.values());
+	}
+
+	/**
+	 * the data from an form-urlencoded or multipart/form-data message body.
+	 * For multipart bodies, uploaded files are mapped to {@link MultipartParser.Part}s, which are closed once the handler returns.
+	 * Handlers that need a spilled file afterwards have to move or copy it.
+	 * @return a data map representing the form data
+	 * @throws IOException if the data cannot be read
+	 */
+	public Map<String, Object> formData() throws IOException {
+		if (formData == null) {
+			var multipart = PathHandler.contentType(ex).map(type -> type.toLowerCase().startsWith(MIME_FORM_DATA)).orElse(false);
+			formData      = multipart ? MultipartParser.of(ex).formData() : Query.decode(body());
+		}
+		return formData;
+	}
+
+	/**
+	 * the body of the request, parsed as JSON object
+	 * @return a json object build from the request body
+	 * @throws IOException if reading the body fails
+	 */
+	public JSONObject json() throws IOException {
+		if (json == null) json = new JSONObject(body());
+		return json;
+	}
+
+	/**
+	 * the languages from the Accept-Language header
+	 * @return the list of languages passed via header
+	 */
+	public List<String> languages() {
+		if (languages == null) {
+			languages = PathHandler.getHeader(ex, "Accept-Language")
+				.map(s -> s.split(","))
+				.stream()
+				.flatMap(Arrays::stream)
+				.filter(not(String::isBlank))
+				.toList();
+		}
+		return languages;
+	}
+
+	/**
+	 * get the context of an exchange.
+	 * @param ex the exchange
+	 * @return the context registered for the exchange, or a new, unregistered one, if the exchange is not processed by a {@link PathHandler}
+	 */
+	public static RequestContext of(HttpExchange ex) {
+		var context = ACTIVE.get(ex);
+		return context == null ? new RequestContext(ex) : context;
+	}
+
+	/**
+	 * the query parameters from the request URI
+	 * @return the query parameters as key → value map
+	 */
+	public Map<String, Object> queryParam() {
+		if (query == null) query = Query.decode(ex.getRequestURI().getQuery());
+		return query;
+	}
+}
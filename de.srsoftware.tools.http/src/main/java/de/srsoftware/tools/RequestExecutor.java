@@ -0,0 +1,219 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static java.lang.System.Logger.Level.WARNING;
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor for HttpServer instances: every request is handled on its own virtual thread,
+ * so blocking I/O in one handler does not block the dispatcher or other requests.
+ * Optionally, the number of concurrently handled requests and the number of requests waiting for a slot can be limited.
+ * The HttpServer only passes opaque tasks to its executor, so requests beyond the limits cannot be answered by the executor itself:
+ * their tasks run in <em>aborted</em> mode, in which the {@link #filter() filter} answers them with 503 Service Unavailable.
+ * Contexts created via {@link PathHandler#bindPath(String...)} carry the filter, other contexts need to {@link #guard(HttpContext) add it},
+ * otherwise their handlers run aborted requests without a slot, so the limits do not apply to them.
+ */
+public class RequestExecutor implements Executor {
+	private static final System.Logger        LOG          = System.getLogger(RequestExecutor.class.getSimpleName());
+	private static final long                 LOG_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+	private static final ThreadLocal<Boolean> ABORTED      = new ThreadLocal<>();
+	private static final Filter               FILTER       = new Filter() {
+		@Override
+		public String description() {
+			return "answers requests rejected by a RequestExecutor with 503 Service Unavailable";
+		}
+
+		@Override
+		public void doFilter(HttpExchange ex, Chain chain) throws IOException {
+			if (!aborted()) {
+				chain.doFilter(ex);
+				return;
+			}
+			try (ex) {
+				ex.sendResponseHeaders(HTTP_UNAVAILABLE, -1);
+			}
+		}
+	};
+
+	private final ExecutorService threads;
+	private final Semaphore       permits;
+	private final int             maxQueue;
+	private final AtomicInteger   active    = new AtomicInteger();
+	private final AtomicInteger   waiting   = new AtomicInteger();
+	private final LongAdder       completed = new LongAdder();
+	private final LongAdder       rejected  = new LongAdder();
+	private final AtomicLong      nextLog   = new AtomicLong(System.nanoTime()); // the earliest time of the next rejection warning
+	private final AtomicLong      reported  = new AtomicLong(); // the number of rejections at the last warning
+
+	/**
+	 * snapshot of the executor state
+	 * @param active the number of requests currently being handled
+	 * @param waiting the number of requests waiting for a free slot
+	 * @param completed the number of requests handled so far
+	 * @param rejected the number of requests rejected, because the queue was full, or aborted while waiting
+	 */
+	public record Metrics(int active, int waiting, long completed, long rejected) {
+	}
+
+	private RequestExecutor(int maxConcurrent, int maxQueue) {
+		this.threads  = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-", 0).factory());
+		this.permits  = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+		this.maxQueue = maxQueue;
+	}
+
+	/**
+	 * create an executor, that handles every request on a new virtual thread, without limits
+	 * @return the executor
+	 */
+	public static RequestExecutor virtual() {
+		return new RequestExecutor(0, 0);
+	}
+
+	/**
+	 * create an executor, that handles requests on virtual threads, with limited concurrency
+	 * @param maxConcurrent the maximum number of requests handled at the same time
+	 * @param maxQueue the maximum number of requests waiting for a free slot. Further requests are answered with 503 Service Unavailable.
+	 *                 The limits only apply to contexts carrying the {@link #filter() filter}, see {@link #guard(HttpContext)}.
+	 * @return the executor
+	 */
+	public static RequestExecutor bounded(int maxConcurrent, int maxQueue) {
+		if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent must be positive!");
+		return new RequestExecutor(maxConcurrent, maxQueue);
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		if (permits == null || permits.tryAcquire()) {
+			try {
+				threads.execute(() -> run(task));
+			} catch (RejectedExecutionException e) { // shut down
+				if (permits != null) permits.release();
+				throw e;
+			}
+			return;
+		}
+		if (waiting.incrementAndGet() > maxQueue) {
+			waiting.decrementAndGet();
+			rejected.increment();
+			logRejection();
+			threads.execute(() -> abort(task)); // answering on the dispatcher thread could block it on a slow client
+			return;
+		}
+		try {
+			threads.execute(() -> {
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) { // clears the flag: an interrupted thread would close the connection on its first write
+					waiting.decrementAndGet();
+					rejected.increment();
+					LOG.log(WARNING, "Request was interrupted while waiting for a free slot, aborting it");
+					abort(task);
+					Thread.currentThread().interrupt();
+					return;
+				}
+				waiting.decrementAndGet();
+				run(task);
+			});
+		} catch (RejectedExecutionException e) { // shut down
+			waiting.decrementAndGet();
+			throw e;
+		}
+	}
+
+	/**
+	 * warn about rejected requests, at most once per {@link #LOG_INTERVAL}, so an overloaded server does not flood its log.
+	 * The exact numbers are available via {@link #metrics()}.
+	 */
+	private void logRejection() {
+		var now  = System.nanoTime();
+		var next = nextLog.get();
+		if (now - next < 0 || !nextLog.compareAndSet(next, now + LOG_INTERVAL)) return;
+		var total = rejected.sum();
+		LOG.log(WARNING, "Rejecting requests: {0} requests active, {1} waiting, {2} rejected since the last warning", active.get(), maxQueue, total - reported.getAndSet(total));
+	}
+
+	/**
+	 * run a task, that did not get a slot, in aborted mode, so its exchange is completed:
+	 * the {@link #filter() filter} answers aborted requests with 503 Service Unavailable instead of passing them to the handler
+	 * @param task the task of the http server, wrapping the exchange
+	 */
+	private void abort(Runnable task) {
+		ABORTED.set(true);
+		try {
+			task.run();
+		} finally {
+			ABORTED.remove();
+		}
+	}
+
+	/**
+	 * the filter, that answers requests with 503 Service Unavailable, which did not get a free slot
+	 * @return the filter
+	 */
+	public static Filter filter() {
+		return FILTER;
+	}
+
+	/**
+	 * add the {@link #filter() filter} to a context, unless it already carries it.
+	 * Required for the limits of {@link #bounded(int, int)} to apply to contexts, that are not created via {@link PathHandler#bindPath(String...)}.
+	 * @param context the context to guard
+	 * @return the context
+	 */
+	public static HttpContext guard(HttpContext context) {
+		var filters = context.getFilters();
+		if (!filters.contains(FILTER)) filters.add(0, FILTER); // answer before other filters run
+		return context;
+	}
+
+	/**
+	 * check, whether the current request was aborted before it got a free slot
+	 * @return true, if the request should be answered without handling it
+	 */
+	static boolean aborted() {
+		return ABORTED.get() != null;
+	}
+
+	/**
+	 * get the current state of this executor
+	 * @return the metrics
+	 */
+	public Metrics metrics() {
+		return new Metrics(active.get(), waiting.get(), completed.sum(), rejected.sum());
+	}
+
+	private void run(Runnable task) {
+		active.incrementAndGet();
+		try {
+			task.run();
+		} finally {
+			active.decrementAndGet();
+			completed.increment();
+			if (permits != null) permits.release();
+		}
+	}
+
+	/**
+	 * stop accepting new requests
+	 */
+	public void shutdown() {
+		threads.shutdown();
+	}
+
+	/**
+	 * stop accepting new requests and interrupt running handlers.
+	 * Requests waiting for a free slot are aborted, see {@link #abort(Runnable)}.
+	 */
+	public void shutdownNow() {
+		threads.shutdownNow();
+	}
+}
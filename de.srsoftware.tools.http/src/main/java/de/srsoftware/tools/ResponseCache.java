@@ -0,0 +1,407 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.PathHandler.*;
+import static java.lang.System.Logger.Level.*;
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opt-in, in-memory cache for the responses of a {@link PathHandler} to GET requests, see {@link PathHandler#cache(ResponseCache)}.
+ * Entries are keyed by the request path, the query – with its parameters sorted – and the values of the {@link #vary(String...) selected request headers}.
+ * Only successful responses sent via {@link PathHandler#sendContent(HttpExchange, int, Object)} and its variants, whose body fits into the response buffer, are stored.
+ * Responses setting cookies or carrying <em>Cache-Control: no-store</em> or <em>private</em> are not stored,
+ * requests with an <em>Authorization</em> or <em>Cookie</em> header bypass the cache, unless that header is selected.
+ * Responses depending on other request data must vary on it or be marked as private.
+ * Responses with a <em>Vary</em> header naming request headers, that are not selected, are not stored.
+ * <p>
+ * Entries expire after a fixed time-to-live; if the cache exceeds its size limits, the least recently used entries are evicted.
+ * Concurrent requests for a missing entry are collapsed: one request runs the handler, the others wait for its response.
+ * They stop waiting as soon as the response turns out not to be cacheable, e.g. because it is streamed, see {@link #bypass(HttpExchange)}.
+ */
+public class ResponseCache {
+	private static final System.Logger LOG  = System.getLogger(ResponseCache.class.getSimpleName());
+	private static final Set<String>   SKIP = Set.of("content-length", "content-encoding", "date", "etag", "transfer-encoding"); // the entity tag is stored separately
+
+	private final LinkedHashMap<Key, Entry>           entries    = new LinkedHashMap<>(16, 0.75f, true); // access order: least recently used first, guarded by itself
+	private final Map<Key, CompletableFuture<Entry>>  inflight   = new ConcurrentHashMap<>();
+	private final AtomicLong                          generation = new AtomicLong(); // incremented on invalidation
+	private long                                      bytes; // guarded by entries
+	private final long                                ttl;
+	private final int                                 maxEntries;
+	private final long                                maxBytes;
+	private List<String>                              vary       = List.of();
+	private boolean                                   precompress;
+	private Duration                                  wait       = Duration.ofSeconds(10);
+
+	private record Key(String path, String query, List<String> headers) {
+	}
+
+	private static class Entry {
+		private final Map<String, List<String>> headers;
+		private final byte[]                    body, gzip;
+		private final String                    etag, gzipTag; // the tag supplied by the handler, the tag of the compressed body
+		private final long                      expires;
+
+		private Entry(Map<String, List<String>> headers, byte[] body, byte[] gzip, String etag, String gzipTag, long expires) {
+			this.headers = headers;
+			this.body    = body;
+			this.gzip    = gzip;
+			this.etag    = etag;
+			this.gzipTag = gzipTag;
+			this.expires = expires;
+		}
+
+		private long size() {
+			return body.length + (gzip == null ? 0 : gzip.length);
+		}
+	}
+
+	/**
+	 * collects the response of the request, that runs the handler on a cache miss
+	 */
+	class Capture {
+		private final PathHandler              handler;
+		private final Key                      key;
+		private final CompletableFuture<Entry> future;
+		private final long                     generation;
+		private boolean                        done;
+
+		private Capture(PathHandler handler, Key key, CompletableFuture<Entry> future, long generation) {
+			this.handler    = handler;
+			this.key        = key;
+			this.future     = future;
+			this.generation = generation;
+		}
+
+		private ResponseCache cache() {
+			return ResponseCache.this;
+		}
+	}
+
+	/**
+	 * create a new cache
+	 * @param ttl the time after which entries expire
+	 * @param maxEntries the maximum number of entries
+	 * @param maxBytes the maximum total size of the stored bodies
+	 */
+	public ResponseCache(Duration ttl, int maxEntries, long maxBytes) {
+		this.ttl        = ttl.toNanos();
+		this.maxEntries = maxEntries;
+		this.maxBytes   = maxBytes;
+	}
+
+	/**
+	 * the total size of the stored bodies
+	 * @return the number of bytes
+	 */
+	public long bytes() {
+		synchronized (entries) {
+			return bytes;
+		}
+	}
+
+	/**
+	 * note that the response of an exchange is sent without being captured, e.g. streamed,
+	 * so requests waiting for the response of its handler can run the handler themselves right away
+	 * @param ex the exchange
+	 */
+	static void bypass(HttpExchange ex) {
+		var capture = RequestContext.of(ex).capture;
+		if (capture == null || capture.done) return;
+		capture.done = true;
+		capture.cache().complete(capture, null);
+	}
+
+	/**
+	 * record the response body of an exchange, if its handler runs on a cache miss
+	 * @param ex the exchange
+	 * @param status the response status
+	 * @param body the buffer holding the uncompressed body
+	 * @param length the length of the body
+	 */
+	static void capture(HttpExchange ex, int status, byte[] body, int length) {
+		var capture = RequestContext.of(ex).capture;
+		if (capture == null || capture.done) return;
+		capture.done = true; // only the first response counts
+		capture.cache().complete(capture, status == HTTP_OK ? entry(capture, ex.getResponseHeaders(), body, length) : null);
+	}
+
+	/**
+	 * store the captured entry, unless the cache was invalidated meanwhile, and hand it to the waiting requests
+	 */
+	private void complete(Capture capture, Entry entry) {
+		if (entry != null && capture.generation == generation.get()) {
+			synchronized (entries) {
+				var old = entries.put(capture.key, entry);
+				bytes += entry.size() - (old == null ? 0 : old.size());
+				evict();
+			}
+		}
+		inflight.remove(capture.key, capture.future);
+		capture.future.complete(entry);
+	}
+
+	private static Entry entry(Capture capture, Headers responseHeaders, byte[] body, int length) {
+		if (responseHeaders.containsKey("Set-Cookie")) return null;
+		if (!capture.cache().covers(responseHeaders.get(VARY))) return null;
+		var cacheControl = String.valueOf(responseHeaders.get("Cache-Control")).toLowerCase();
+		if (cacheControl.contains("no-store") || cacheControl.contains("private")) return null;
+		var headers = new LinkedHashMap<String, List<String>>();
+		responseHeaders.forEach((key, values) -> {
+			if (!SKIP.contains(key.toLowerCase())) headers.put(key, List.copyOf(values));
+		});
+		var handler  = capture.handler;
+		var cache    = capture.cache();
+		var copy     = Arrays.copyOf(body, length);
+		var supplied = responseHeaders.getFirst(ETAG); // set by the handler, e.g. via sendNotModified
+		byte[] gzip  = null;
+		var gzipTag  = supplied;
+		if (cache.precompress && handler.compressionThreshold >= 0 && length >= handler.compressionThreshold && !isCompressed(responseHeaders.getFirst(CONTENT_TYPE))) {
+			gzip = gzip(copy);
+			if (gzip.length >= length) {
+				gzip = null;
+			} else if (supplied == null && length <= handler.etagLimit) gzipTag = etag(copy, length, GZIP);
+		}
+		return new Entry(Map.copyOf(headers), copy, gzip, supplied, gzipTag, System.nanoTime() + cache.ttl);
+	}
+
+	/**
+	 * remove the least recently used entries, until the cache fits into its limits. Must be called while holding the lock on the entries.
+	 */
+	private void evict() {
+		for (var it = entries.entrySet().iterator(); it.hasNext() && (entries.size() > maxEntries || bytes > maxBytes); ) {
+			var oldest = it.next();
+			it.remove();
+			bytes -= oldest.getValue().size();
+			LOG.log(DEBUG, "Evicted {0}", oldest.getKey());
+		}
+	}
+
+	/**
+	 * check, whether all request headers listed in the <em>Vary</em> header of a response are part of the key.
+	 * Accept-Encoding is covered, as stored bodies are encoded per request.
+	 */
+	private boolean covers(List<String> varyHeaders) {
+		if (varyHeaders == null) return true;
+		for (var value : varyHeaders) {
+			for (var name : value.split(",")) {
+				name = name.strip().toLowerCase();
+				if (name.isEmpty() || name.equals(ACCEPT_ENCODING.toLowerCase())) continue;
+				if (!vary.contains(name)) return false; // also covers *
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * check, whether the request carries a header, that may identify the user, without it being part of the key
+	 */
+	private boolean credentials(HttpExchange ex, String header) {
+		return ex.getRequestHeaders().containsKey(header) && !vary.contains(header.toLowerCase());
+	}
+
+	private static byte[] gzip(byte[] body) {
+		var buffer = new ByteArrayOutputStream(body.length / 2 + 64);
+		try (var out = new GZIPOutputStream(buffer)) {
+			out.write(body);
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // not thrown by in-memory streams
+		}
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * serve a GET request from the cache, or run the handler and store its response
+	 * @param ex the exchange
+	 * @param handler the handler, that runs on cache misses
+	 * @return false, if the request bypasses the cache and has not been handled
+	 * @throws IOException if sending the response fails
+	 */
+	boolean handle(HttpExchange ex, PathHandler handler) throws IOException {
+		if (!GET.equals(ex.getRequestMethod())) return false;
+		if (credentials(ex, AUTHORIZATION) || credentials(ex, COOKIE)) return false;
+		var key = key(ex);
+		while (true) {
+			var entry = lookup(key);
+			if (entry != null) {
+				send(ex, entry, handler);
+				return true;
+			}
+			var future  = new CompletableFuture<Entry>();
+			var running = inflight.putIfAbsent(key, future);
+			if (running == null) return lead(ex, handler, key, future);
+			try {
+				entry = running.get(wait.toMillis(), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				LOG.log(DEBUG, "Gave up waiting for {0}", key);
+				return false;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} catch (ExecutionException e) {
+				return false;
+			}
+			if (entry == null) return false; // the response was not cacheable, so run the handler for this request, too
+			if (entry.expires - System.nanoTime() > 0) {
+				send(ex, entry, handler);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * remove all entries
+	 */
+	public void invalidate() {
+		generation.incrementAndGet();
+		synchronized (entries) {
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * remove the entries for a route
+	 * @param pathPrefix the request path or its beginning, e.g. /api/dashboard
+	 * @return the number of removed entries
+	 */
+	public int invalidate(String pathPrefix) {
+		generation.incrementAndGet();
+		var count = 0;
+		synchronized (entries) {
+			for (var it = entries.entrySet().iterator(); it.hasNext(); ) {
+				var entry = it.next();
+				if (!entry.getKey().path().startsWith(pathPrefix)) continue;
+				it.remove();
+				bytes -= entry.getValue().size();
+				count++;
+			}
+		}
+		LOG.log(DEBUG, "Invalidated {0} entries below {1}", count, pathPrefix);
+		return count;
+	}
+
+	private Key key(HttpExchange ex) {
+		var uri   = ex.getRequestURI();
+		var query = uri.getRawQuery();
+		if (query != null && query.indexOf('&') >= 0) {
+			var params = query.split("&");
+			Arrays.sort(params, Comparator.comparing(ResponseCache::name)); // stable, so repeated parameters keep their order
+			var sb = new StringBuilder(query.length());
+			for (var param : params) {
+				if (param.isEmpty()) continue;
+				if (!sb.isEmpty()) sb.append('&');
+				sb.append(param);
+			}
+			query = sb.toString();
+		}
+		if (vary.isEmpty()) return new Key(uri.getRawPath(), query, List.of());
+		var values  = new String[vary.size()];
+		var headers = ex.getRequestHeaders();
+		for (int i = 0; i < values.length; i++) values[i] = String.valueOf(headers.get(vary.get(i)));
+		return new Key(uri.getRawPath(), query, List.of(values));
+	}
+
+	private boolean lead(HttpExchange ex, PathHandler handler, Key key, CompletableFuture<Entry> future) throws IOException {
+		var context = RequestContext.of(ex);
+		var capture = new Capture(handler, key, future, generation.get());
+		context.capture = capture;
+		try {
+			handler.dispatch(ex);
+		} finally {
+			context.capture = null;
+			if (!capture.done) complete(capture, null); // no response, or one sent directly via the exchange
+		}
+		return true;
+	}
+
+	/**
+	 * get an entry, that has not expired yet
+	 */
+	private Entry lookup(Key key) {
+		synchronized (entries) {
+			var entry = entries.get(key);
+			if (entry == null || entry.expires - System.nanoTime() > 0) return entry;
+			entries.remove(key);
+			bytes -= entry.size();
+			return null;
+		}
+	}
+
+	private static String name(String param) {
+		var eq = param.indexOf('=');
+		return eq < 0 ? param : param.substring(0, eq);
+	}
+
+	/**
+	 * store a gzip-compressed copy of large, compressible bodies, so they are not compressed again for every request
+	 * @param enabled whether to store compressed copies, defaults to false
+	 * @return this cache
+	 */
+	public ResponseCache precompress(boolean enabled) {
+		precompress = enabled;
+		return this;
+	}
+
+	private static void send(HttpExchange ex, Entry entry, PathHandler handler) throws IOException {
+		var headers = ex.getResponseHeaders();
+		entry.headers.forEach((name, values) -> headers.put(name, new ArrayList<>(values))); // the stored lists are immutable
+		if (entry.gzip == null || !GZIP.equals(contentEncoding(ex))) {
+			if (entry.etag != null) headers.set(ETAG, entry.etag);
+			handler.sendContent(ex, HTTP_OK, entry.body); // tags and compresses the body, if applicable
+		} else {
+			varyOnEncoding(headers);
+			if (entry.gzipTag != null) headers.set(ETAG, entry.gzipTag);
+			if (entry.gzipTag != null && etagMatches(ex, entry.gzipTag)) {
+				ex.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+			} else {
+				headers.set(CONTENT_ENCODING, GZIP);
+				ex.sendResponseHeaders(HTTP_OK, entry.gzip.length);
+				ex.getResponseBody().write(entry.gzip);
+			}
+		}
+		ex.getRequestBody().close();
+		ex.getResponseBody().close(); // completes the exchange, as dispatch does
+	}
+
+	/**
+	 * the number of entries
+	 * @return the number of stored responses
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * select request headers, whose values are part of the cache key, e.g. Accept-Language
+	 * @param headers the names of the headers
+	 * @return this cache
+	 */
+	public ResponseCache vary(String... headers) {
+		vary = Arrays.stream(headers).map(String::toLowerCase).toList();
+		return this;
+	}
+
+	/**
+	 * set the time, concurrent requests wait for the response of the request running the handler, before running the handler themselves
+	 * @param timeout the maximum waiting time, defaults to 10 seconds
+	 * @return this cache
+	 */
+	public ResponseCache waitAtMost(Duration timeout) {
+		wait = timeout;
+		return this;
+	}
+}
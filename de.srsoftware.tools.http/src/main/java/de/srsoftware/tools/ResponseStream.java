@@ -0,0 +1,262 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.PathHandler.*;
+import static java.net.HttpURLConnection.HTTP_OK;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OutputStream for response bodies of unknown length.
+ * Content is collected in a fixed buffer. If the stream is closed before the buffer overflows, the response is sent with a content length.
+ * Otherwise – or if {@link #push()} is called – the headers are sent and the body is transmitted with chunked encoding, compressed, if an encoding was negotiated.
+ * The buffer then collects the following content in chunks, large writes bypass it.
+ * Text can be written via {@link #writer()}, which encodes UTF-8 directly into the buffer, without buffers of its own.
+ * Flushing has no effect, before the headers have been sent, as writers flush their streams on close.
+ * Bodies sent with a content length may carry an entity tag, see {@link PathHandler#etags(int)}:
+ * for successful GET and HEAD responses, the buffer grows up to the tagging limit, before the headers are sent.
+ * Only a regular {@link #close()} completes the response, a body that failed to render is dropped via {@link #abort()}.
+ * Buffers of the default size are pooled, as requests run on virtual threads, which makes per-thread buffers useless.
+ */
+class ResponseStream extends OutputStream {
+	private static final int                   BUFFER_SIZE = 8192;
+	private static final BlockingQueue<byte[]> POOL        = new ArrayBlockingQueue<>(64);
+
+	private final HttpExchange ex;
+	private final int          status;
+	private final String       encoding;
+	private final int          threshold;
+	private final int          etagLimit; // maximum size of tagged bodies, 0 if the response is not tagged
+	private byte[]             buffer; // null, once released
+	private int                count  = 0;
+	private OutputStream       out    = null;
+	private boolean            closed = false;
+
+	/**
+	 * create a new response stream
+	 * @param ex the exchange to respond to
+	 * @param status the status code of the response
+	 * @param encoding the content encoding (gzip or deflate), null for uncompressed responses
+	 * @param threshold the minimum size of compressed responses
+	 * @param etagLimit the maximum size of bodies, that are tagged, so matching conditional requests are answered with 304 Not Modified. 0 disables tagging
+	 */
+	ResponseStream(HttpExchange ex, int status, String encoding, int threshold, int etagLimit) {
+		this.ex        = ex;
+		this.status    = status;
+		this.encoding  = encoding;
+		this.threshold = threshold;
+		this.etagLimit = status == HTTP_OK && (GET.equals(ex.getRequestMethod()) || HEAD.equals(ex.getRequestMethod())) ? etagLimit : 0;
+		this.buffer    = threshold > BUFFER_SIZE ? new byte[threshold] : acquire();
+	}
+
+	/**
+	 * abandon the response, e.g. because rendering the body failed.
+	 * If the headers have not been sent yet, the buffered content is discarded and another response – e.g. an error – may be sent instead.
+	 * Otherwise the body is left incomplete: the failure should be rethrown, so the server drops the connection.
+	 * @return true, if nothing has been sent to the client
+	 */
+	boolean abort() {
+		closed = true;
+		count  = 0;
+		release();
+		return out == null;
+	}
+
+	private static byte[] acquire() {
+		var buffer = POOL.poll();
+		return buffer == null ? new byte[BUFFER_SIZE] : buffer;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) return;
+		closed = true;
+		if (out == null) {
+			vary();
+			ResponseCache.capture(ex, status, buffer, count);
+			var compress = encoding != null && count >= threshold;
+			if (count <= etagLimit && notModified(ex, status, buffer, count, compress ? encoding : null)) {
+				out = ex.getResponseBody();
+			} else if (compress) {
+				commit();
+			} else {
+				ex.sendResponseHeaders(status, count == 0 ? -1 : count);
+				out = ex.getResponseBody();
+				out.write(buffer, 0, count);
+			}
+		} else drain();
+		release();
+		out.close();
+	}
+
+	private void commit() throws IOException {
+		ResponseCache.bypass(ex); // streamed bodies are not cached
+		vary();
+		if (encoding != null) ex.getResponseHeaders().set(CONTENT_ENCODING, encoding);
+		ex.sendResponseHeaders(status, 0); // chunked
+		var body = ex.getResponseBody();
+		out = encoding == null ? body : encoding.equals(GZIP) ? new GZIPOutputStream(body, true) : new DeflaterOutputStream(body, true);
+		out.write(buffer, 0, count);
+		count = 0; // the buffer now collects content for out
+	}
+
+	/**
+	 * send the headers, if not done yet, and pass the buffered content on to the (compressing) body stream
+	 */
+	private void drain() throws IOException {
+		if (out == null) {
+			commit();
+		} else if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (closed || out == null) return;
+		drain();
+		out.flush();
+	}
+
+	/**
+	 * send the headers, if not done yet, and transmit all buffered content to the client
+	 * @throws IOException if writing to the client fails
+	 */
+	void push() throws IOException {
+		if (closed) throw new IOException("Stream closed");
+		drain();
+		out.flush();
+	}
+
+	/**
+	 * enlarge the buffer, so a body, that may be tagged, is not sent before it is complete
+	 * @param needed the required size of the buffer
+	 * @return true, if the buffer has been enlarged
+	 */
+	private boolean grow(int needed) {
+		if (out != null || needed > etagLimit) return false;
+		var grown = Arrays.copyOf(buffer, Math.min(Math.max(needed, buffer.length * 2), etagLimit));
+		release();
+		buffer = grown;
+		return true;
+	}
+
+	private void put(int b) throws IOException {
+		if (count == buffer.length && !grow(count + 1)) drain();
+		buffer[count++] = (byte)b;
+	}
+
+	/**
+	 * return the buffer to the pool, once it is no longer needed
+	 */
+	private void release() {
+		if (buffer != null && buffer.length == BUFFER_SIZE) POOL.offer(buffer);
+		buffer = null;
+	}
+
+	private void vary() {
+		if (encoding != null) varyOnEncoding(ex.getResponseHeaders());
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (closed) throw new IOException("Stream closed");
+		put(b);
+	}
+
+	@Override
+	public void write(byte[] bytes, int off, int len) throws IOException {
+		if (closed) throw new IOException("Stream closed");
+		if (count + len > buffer.length && !grow(count + len)) {
+			drain();
+			if (len >= buffer.length) {
+				out.write(bytes, off, len);
+				return;
+			}
+		}
+		System.arraycopy(bytes, off, buffer, count, len);
+		count += len;
+	}
+
+	/**
+	 * create a writer, that encodes characters as UTF-8 directly into this stream.
+	 * Closing the writer closes the stream.
+	 * @return the writer
+	 */
+	Writer writer() {
+		return new Utf8Writer();
+	}
+
+	private class Utf8Writer extends Writer {
+		private char highSurrogate = 0; // first half of a surrogate pair, that has not been written yet
+
+		@Override
+		public void close() throws IOException {
+			if (closed) return;
+			if (highSurrogate != 0) put('?');
+			ResponseStream.this.close();
+		}
+
+		private void encode(char c) throws IOException {
+			if (highSurrogate != 0) {
+				var high = highSurrogate;
+				highSurrogate = 0;
+				if (Character.isLowSurrogate(c)) {
+					var codePoint = Character.toCodePoint(high, c);
+					put(0xF0 | codePoint >> 18);
+					put(0x80 | codePoint >> 12 & 0x3F);
+					put(0x80 | codePoint >> 6 & 0x3F);
+					put(0x80 | codePoint & 0x3F);
+					return;
+				}
+				put('?'); // unpaired surrogates are replaced, like OutputStreamWriter does
+			}
+			if (c < 0x80) {
+				put(c);
+			} else if (c < 0x800) {
+				put(0xC0 | c >> 6);
+				put(0x80 | c & 0x3F);
+			} else if (Character.isHighSurrogate(c)) {
+				highSurrogate = c;
+			} else if (Character.isLowSurrogate(c)) {
+				put('?');
+			} else {
+				put(0xE0 | c >> 12);
+				put(0x80 | c >> 6 & 0x3F);
+				put(0x80 | c & 0x3F);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			ResponseStream.this.flush();
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			if (closed) throw new IOException("Stream closed");
+			encode((char)c);
+		}
+
+		@Override
+		public void write(char[] chars, int off, int len) throws IOException {
+			if (closed) throw new IOException("Stream closed");
+			for (int i = off, end = off + len; i < end; i++) encode(chars[i]);
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			if (closed) throw new IOException("Stream closed");
+			for (int i = off, end = off + len; i < end; i++) encode(str.charAt(i));
+		}
+	}
+}
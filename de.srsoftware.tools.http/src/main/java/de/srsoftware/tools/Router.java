@@ -0,0 +1,263 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static java.net.URLDecoder.decode;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A routing trie keyed on path segments.
+ * Patterns consist of literal segments, <code>{name}</code> segments capturing a single segment and a trailing <code>*</code> capturing the remainder of the path.
+ * Literal segments take precedence over captures, captures take precedence over wildcards.
+ * Matching walks the raw request path segment by segment, without splitting it.
+ * Literal segments of patterns are compared with the url-decoded request segments, like {@link Path#pop()} returns them:
+ * only segments containing escapes are decoded, others are looked up in place.
+ * Routes should be added before the router is used to match requests.
+ * @param <H> the type of the route handlers
+ */
+public class Router<H> {
+	/** name under which the remainder matched by a wildcard is captured **/ public static final String WILDCARD = "*";
+
+	private static final int[] NO_CAPTURES = new int[0];
+
+	private final Node<H> root = new Node<>();
+
+	private record Entry<H>(H handler, String[] names, Match<H> fixed) { // fixed: the shared match of a route without parameters
+		private Entry(H handler, String[] names) {
+			this(handler, names, names.length == 0 ? new Match<>(handler, names, null, NO_CAPTURES) : null);
+		}
+
+		private Match<H> match(String path) {
+			return fixed != null ? fixed : new Match<>(handler, names, path, new int[2 * names.length]);
+		}
+	}
+
+	/**
+	 * a trie node. Literal children are kept in an open addressing hash table keyed by the segment,
+	 * which is probed with the hash of a region of the request path, so lookups neither scan all children nor allocate substrings.
+	 */
+	private static class Node<H> {
+		private String[]                    keys     = new String[4];
+		private Node<H>[]                   children = newArray(4);
+		private int                         size     = 0;
+		private final Map<String, Entry<H>> handlers = new HashMap<>();
+		private Node<H>                     param    = null;
+		private Node<H>                     wildcard = null;
+
+		private Node<H> child(String path, int start, int end) {
+			if (size == 0) return null;
+			int length = end - start;
+			int mask   = keys.length - 1;
+			for (int i = hash(path, start, end) & mask;; i = (i + 1) & mask) {
+				var key = keys[i];
+				if (key == null) return null;
+				if (key.length() == length && path.regionMatches(start, key, 0, length)) return children[i];
+			}
+		}
+
+		private Node<H> decodedChild(String path, int start, int end) {
+			try {
+				var segment = decode(path.substring(start, end), UTF_8);
+				return child(segment, 0, segment.length());
+			} catch (IllegalArgumentException e) { // malformed escape, cannot match a literal
+				return null;
+			}
+		}
+
+		private Node<H> literal(String key) {
+			var child = child(key, 0, key.length());
+			if (child != null) return child;
+			if (2 * (size + 1) > keys.length) resize();
+			child = new Node<>();
+			put(keys, children, key, child);
+			size++;
+			return child;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <H> Node<H>[] newArray(int length) {
+			return (Node<H>[])new Node<?>[length];
+		}
+
+		private static <H> void put(String[] keys, Node<H>[] children, String key, Node<H> child) {
+			int mask = keys.length - 1;
+			int i    = hash(key, 0, key.length()) & mask;
+			while (keys[i] != null) i = (i + 1) & mask;
+			keys[i]     = key;
+			children[i] = child;
+		}
+
+		private void resize() {
+			var newKeys     = new String[keys.length * 2];
+			var newChildren = Node.<H>newArray(keys.length * 2);
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != null) put(newKeys, newChildren, keys[i], children[i]);
+			}
+			keys     = newKeys;
+			children = newChildren;
+		}
+	}
+
+	/**
+	 * the result of a successful match
+	 * @param <H> the type of the route handler
+	 */
+	public static class Match<H> {
+		private final H        handler;
+		private final String[] names;
+		private final String   path;
+		private final int[]    captures;
+
+		private Match(H handler, String[] names, String path, int[] captures) {
+			this.handler  = handler;
+			this.names    = names;
+			this.path     = path;
+			this.captures = captures;
+		}
+
+		/**
+		 * the handler of the matched route
+		 * @return the handler
+		 */
+		public H handler() {
+			return handler;
+		}
+
+		/**
+		 * get the (url-decoded) value of a captured path parameter
+		 * @param name the name of the parameter, as given in the pattern, or {@link Router#WILDCARD}
+		 * @return the value of the parameter, or null, if the route has no such parameter
+		 */
+		public String param(String name) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].equals(name)) return value(i);
+			}
+			return null;
+		}
+
+		/**
+		 * get all captured path parameters
+		 * @return a map from parameter names to the (url-decoded) values
+		 */
+		public Map<String, String> params() {
+			var map = new LinkedHashMap<String, String>();
+			for (int i = 0; i < names.length; i++) map.put(names[i], value(i));
+			return map;
+		}
+
+		private void capture(int index, int start, int end) {
+			captures[2 * index]     = start;
+			captures[2 * index + 1] = end;
+		}
+
+		private String value(int index) {
+			return decode(path.substring(captures[2 * index], captures[2 * index + 1]), UTF_8);
+		}
+	}
+
+	/**
+	 * add a route
+	 * @param method the http method, e.g. GET
+	 * @param pattern the path pattern, e.g. <code>/users/{id}/files/*</code>
+	 * @param handler the handler to return for matching requests
+	 * @return this router
+	 */
+	public synchronized Router<H> add(String method, String pattern, H handler) {
+		var node  = root;
+		var names = new ArrayList<String>();
+		var parts = pattern.split("/");
+		for (int i = 0; i < parts.length; i++) {
+			var segment = parts[i];
+			if (segment.isEmpty()) continue;
+			if (segment.equals(WILDCARD)) {
+				if (i < parts.length - 1) throw new IllegalArgumentException("Wildcard must be the last segment of \"%s\"!".formatted(pattern));
+				if (node.wildcard == null) node.wildcard = new Node<>();
+				node = node.wildcard;
+				names.add(WILDCARD);
+			} else if (segment.startsWith("{") && segment.endsWith("}")) {
+				if (node.param == null) node.param = new Node<>();
+				node = node.param;
+				names.add(segment.substring(1, segment.length() - 1));
+			} else {
+				node = node.literal(segment);
+			}
+		}
+		node.handlers.put(method, new Entry<>(handler, names.toArray(String[]::new)));
+		return this;
+	}
+
+	private static boolean encoded(String path, int start, int end) {
+		for (int i = start; i < end; i++) {
+			var c = path.charAt(i);
+			if (c == '%' || c == '+') return true;
+		}
+		return false;
+	}
+
+	private static int hash(String s, int start, int end) { // String.hashCode() of the region, with the high bits spread
+		int h = 0;
+		for (int i = start; i < end; i++) h = 31 * h + s.charAt(i);
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * find the route matching the given request.
+	 * Matching routes without path parameters returns a shared match object, so it does not allocate.
+	 * @param method the http method of the request
+	 * @param path the (raw) path of the request, relative to the context the router is bound to
+	 * @return the match, or null, if no route matches
+	 */
+	public Match<H> match(String method, String path) {
+		if (path == null) path = "";
+		return match(root, method, path, skipSlashes(path, 0), 0);
+	}
+
+	private Match<H> match(Node<H> node, String method, String path, int pos, int depth) {
+		int length = path.length();
+		if (pos >= length) {
+			var entry = node.handlers.get(method);
+			if (entry != null) return entry.match(path);
+			if (node.wildcard == null) return null;
+			entry = node.wildcard.handlers.get(method);
+			if (entry == null) return null;
+			var match = entry.match(path);
+			match.capture(depth, pos, pos);
+			return match;
+		}
+		int end = path.indexOf('/', pos);
+		if (end < 0) end = length;
+		int next  = skipSlashes(path, end);
+		var child = encoded(path, pos, end) ? node.decodedChild(path, pos, end) : node.child(path, pos, end);
+		if (child != null) {
+			var match = match(child, method, path, next, depth);
+			if (match != null) return match;
+		}
+		if (node.param != null) {
+			var match = match(node.param, method, path, next, depth + 1);
+			if (match != null) {
+				match.capture(depth, pos, end);
+				return match;
+			}
+		}
+		if (node.wildcard != null) {
+			var entry = node.wildcard.handlers.get(method);
+			if (entry != null) {
+				int last = length;
+				while (last > pos && path.charAt(last - 1) == '/') last--;
+				var match = entry.match(path);
+				match.capture(depth, pos, last);
+				return match;
+			}
+		}
+		return null;
+	}
+
+	private static int skipSlashes(String path, int pos) {
+		while (pos < path.length() && path.charAt(pos) == '/') pos++;
+		return pos;
+	}
+}
@@ -0,0 +1,334 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static java.lang.System.Logger.Level.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Concurrent in-memory store for session data, keyed by the ids carried in {@link SessionToken}s.
+ * Sessions expire after a sliding time-to-live: every lookup extends the lifetime of the session.
+ * Expiry is driven by a timer wheel, so lookups only update a timestamp.
+ * The wheel has a bounded number of slots: sessions expiring more than one rotation ahead stay in their slot for further rounds.
+ * If the store exceeds its maximum size, the least recently used sessions are evicted.
+ * Eviction runs on the timer thread, not on the thread adding a session, so the store may briefly exceed its maximum size.
+ * @param <T> the type of the session data
+ */
+public class SessionStore<T> implements AutoCloseable {
+	private static final System.Logger LOG       = System.getLogger(SessionStore.class.getSimpleName());
+	private static final SecureRandom  RANDOM    = new SecureRandom();
+	private static final int           MAX_SLOTS = 1 << 12;
+	private static final long          MAX_TICKS = 1 << 20; // per ttl, i.e. the number of rounds is limited to MAX_TICKS / MAX_SLOTS
+
+	private final Map<String, Entry<T>>                 sessions = new ConcurrentHashMap<>();
+	private final List<ConcurrentLinkedQueue<Entry<T>>> wheel;
+	private final long                                  ttl;
+	private final long                                  tick;
+	private final int                                   maxSize;
+	private final ScheduledExecutorService              ticker;
+	private final Clock                                 clock;
+	private final AtomicBoolean                         evicting = new AtomicBoolean(false); // an eviction has been requested
+	private volatile long                               lastTick;
+
+	private static class Entry<T> {
+		private final String  id;
+		private final T       value;
+		private volatile long expires;
+
+		private Entry(String id, T value, long expires) {
+			this.id      = id;
+			this.value   = value;
+			this.expires = expires;
+		}
+	}
+
+	/**
+	 * create a new store
+	 * @param ttl the time after the last access, after which a session expires
+	 * @param maxSize the maximum number of sessions
+	 */
+	public SessionStore(Duration ttl, int maxSize) {
+		this(ttl, maxSize, Duration.ofSeconds(1));
+	}
+
+	/**
+	 * create a new store
+	 * @param ttl the time after the last access, after which a session expires
+	 * @param maxSize the maximum number of sessions
+	 * @param resolution the tick interval of the timer wheel, i.e. the precision of expiry
+	 */
+	public SessionStore(Duration ttl, int maxSize, Duration resolution) {
+		this(ttl, maxSize, resolution, Clock.systemUTC());
+	}
+
+	/**
+	 * create a new store
+	 * @param ttl the time after the last access, after which a session expires
+	 * @param maxSize the maximum number of sessions
+	 * @param resolution the tick interval of the timer wheel, i.e. the precision of expiry. Coarsened, if the ttl spans more than 2<sup>20</sup> ticks
+	 * @param clock the source of the current time, the timer wheel still ticks in real time
+	 * @throws IllegalArgumentException if the ttl is negative
+	 */
+	public SessionStore(Duration ttl, int maxSize, Duration resolution, Clock clock) {
+		if (ttl.isNegative()) throw new IllegalArgumentException("ttl must not be negative");
+		var requested = Math.max(1, resolution.toMillis());
+		this.clock    = clock;
+		this.ttl      = ttl.toMillis();
+		this.tick     = Math.max(requested, Math.ceilDiv(this.ttl, MAX_TICKS));
+		this.maxSize  = maxSize;
+		this.wheel    = new ArrayList<>();
+		if (tick > requested) LOG.log(WARNING, "Resolution of {0} is too fine for a ttl of {1}, using {2} ms", resolution, ttl, tick);
+		for (var i = Math.min(this.ttl / tick + 2, MAX_SLOTS); i > 0; i--) wheel.add(new ConcurrentLinkedQueue<>());
+		this.lastTick = now() / tick;
+		this.ticker   = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			var thread = new Thread(runnable, SessionStore.class.getSimpleName());
+			thread.setDaemon(true);
+			return thread;
+		});
+		ticker.scheduleAtFixedRate(this::advance, tick, tick, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * process all slots of the wheel, that became due since the last call
+	 */
+	private void advance() {
+		var now     = now();
+		var current = now / tick;
+		for (var t = Math.max(lastTick + 1, current - wheel.size() + 1); t <= current; t++) {
+			lastTick = t; // entries rescheduled while draining go to later slots
+			drain(t, now, false);
+		}
+		if (sessions.size() > maxSize) evict();
+	}
+
+	/**
+	 * stop the expiry timer
+	 */
+	@Override
+	public void close() {
+		ticker.shutdownNow();
+	}
+
+	/**
+	 * store a new session
+	 * @param value the session data
+	 * @return the id of the new session, to be sent in a {@link SessionToken}
+	 */
+	public String create(T value) {
+		var bytes = new byte[16];
+		RANDOM.nextBytes(bytes);
+		var id = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+		put(id, value);
+		return id;
+	}
+
+	/**
+	 * process the entries of one slot: reschedule touched entries, remove expired ones
+	 * @param t the tick, whose slot shall be processed
+	 * @param now the current time
+	 * @param evict if true, also remove entries not touched since they were scheduled, as long as the store exceeds its maximum size
+	 */
+	private void drain(long t, long now, boolean evict) {
+		var queue = wheel.get(slot(t));
+		for (var count = queue.size(); count > 0; count--) {
+			var entry = queue.poll();
+			if (entry == null) break;
+			if (sessions.get(entry.id) != entry) continue; // removed or replaced
+			var expires = entry.expires;
+			if (expires <= now) {
+				if (sessions.remove(entry.id, entry)) LOG.log(DEBUG, "Session {0} expired", entry.id);
+			} else if (evict && expires / tick <= t && sessions.size() > maxSize) { // not touched since it was scheduled
+				if (sessions.remove(entry.id, entry)) LOG.log(DEBUG, "Evicting least recently used session {0}", entry.id);
+			} else {
+				schedule(entry, expires);
+			}
+		}
+	}
+
+	/**
+	 * remove expired and least recently used sessions, until the store does not exceed its maximum size.
+	 * Runs on the timer thread, or on the calling thread, once the store has been closed.
+	 */
+	private void evict() {
+		var now   = now();
+		var first = lastTick + 1; // the earliest slot, that has not been processed
+		for (var t = first; t < first + wheel.size() && sessions.size() > maxSize; t++) drain(t, now, true);
+		var excess = sessions.size() - maxSize;
+		if (excess <= 0) return;
+		// no session expires within the next rotation, or the wheel lags behind, e.g. after close(): fall back to a scan
+		var oldest = sessions.values().stream().sorted(Comparator.comparingLong(entry -> entry.expires)).limit(excess).toList();
+		for (var entry : oldest) {
+			if (sessions.remove(entry.id, entry)) LOG.log(DEBUG, "Evicting least recently used session {0}", entry.id);
+		}
+	}
+
+	/**
+	 * look up a session and extend its lifetime
+	 * @param id the session id
+	 * @return the session data, or empty, if there is no such session or it expired
+	 */
+	public Optional<T> get(String id) {
+		if (id == null) return Optional.empty();
+		var entry = sessions.get(id);
+		if (entry == null) return Optional.empty();
+		var now = now();
+		if (entry.expires <= now) {
+			sessions.remove(id, entry);
+			return Optional.empty();
+		}
+		entry.expires = now + ttl; // the wheel picks up the new expiry lazily
+		return Optional.of(entry.value);
+	}
+
+	/**
+	 * look up the session of the token submitted with the request
+	 * @param ex the exchange carrying a session token cookie
+	 * @return the session data, or empty, if no valid session token was submitted
+	 */
+	public Optional<T> get(HttpExchange ex) {
+		return SessionToken.from(ex).map(SessionToken::sessionId).flatMap(this::get);
+	}
+
+	/**
+	 * remove a session
+	 * @param id the session id
+	 * @return the data of the removed session, or empty, if there was no such session
+	 */
+	public Optional<T> invalidate(String id) {
+		return Optional.ofNullable(sessions.remove(id)).map(entry -> entry.value);
+	}
+
+	private long now() {
+		return clock.millis();
+	}
+
+	/**
+	 * store a session under the given id, replacing an existing session with the same id
+	 * @param id the session id
+	 * @param value the session data
+	 * @return this store
+	 */
+	public SessionStore<T> put(String id, T value) {
+		put(id, value, now() + ttl);
+		return this;
+	}
+
+	private void put(String id, T value, long expires) {
+		var entry = new Entry<>(id, value, expires);
+		sessions.put(id, entry);
+		schedule(entry, expires);
+		if (sessions.size() > maxSize && evicting.compareAndSet(false, true)) requestEviction();
+	}
+
+	/**
+	 * let the timer thread evict sessions, so the thread adding a session does not have to scan the store
+	 */
+	private void requestEviction() {
+		try {
+			ticker.execute(() -> {
+				evicting.set(false); // sessions added from now on request another eviction
+				evict();
+			});
+		} catch (RejectedExecutionException e) { // closed
+			evicting.set(false);
+			evict();
+		}
+	}
+
+	/**
+	 * load sessions written by {@link #snapshot(File, Function)}. Expired sessions are skipped.
+	 * @param file the file to read
+	 * @param decoder converts the stored strings to session data
+	 * @return the number of restored sessions
+	 * @throws IOException if reading the file fails
+	 */
+	public int restore(File file, Function<String, T> decoder) throws IOException {
+		if (!file.exists()) return 0;
+		var now   = now();
+		var count = 0;
+		for (var line : Files.readAllLines(file.toPath(), UTF_8)) {
+			var parts = line.split("\t", 3);
+			if (parts.length < 3) continue;
+			long   expires;
+			byte[] data;
+			try {
+				expires = Long.parseLong(parts[1]);
+				data    = Base64.getDecoder().decode(parts[2]);
+			} catch (IllegalArgumentException e) {
+				LOG.log(WARNING, "Skipping malformed session in {0}: {1}", file, e.getMessage());
+				continue;
+			}
+			if (expires <= now) continue;
+			put(parts[0], decoder.apply(new String(data, UTF_8)), Math.min(expires, now + ttl));
+			count++;
+		}
+		LOG.log(INFO, "Restored {0} sessions from {1}", count, file);
+		return count;
+	}
+
+	/**
+	 * add the entry to the slot of its expiry. If that is more than one rotation ahead, the entry is skipped by the intermediate rounds:
+	 * draining compares the expiry to the current tick and puts the entry back, so the expiry acts as the round count.
+	 */
+	private void schedule(Entry<T> entry, long expires) {
+		var t = Math.max(expires / tick, lastTick + 1); // past slots have already been processed
+		wheel.get(slot(t)).add(entry);
+	}
+
+	/**
+	 * the number of stored sessions
+	 * @return the number of sessions, including those expired in the current tick
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+	private int slot(long tick) {
+		return (int)(tick % wheel.size());
+	}
+
+	/**
+	 * write all sessions to a file, e.g. before shutting down, so they can be {@link #restore(File, Function) restored} after a restart
+	 * @param file the file to write
+	 * @param encoder converts session data to strings
+	 * @return the number of written sessions
+	 * @throws IOException if writing the file fails
+	 */
+	public int snapshot(File file, Function<T, String> encoder) throws IOException {
+		var lines = new ArrayList<String>();
+		var now   = now();
+		for (var entry : sessions.values()) {
+			if (entry.expires <= now) continue;
+			var data = Base64.getEncoder().encodeToString(encoder.apply(entry.value).getBytes(UTF_8));
+			lines.add(entry.id + "\t" + entry.expires + "\t" + data);
+		}
+		// readable by the owner only, as the session ids grant access to the sessions
+		var temp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+		try {
+			Files.write(temp, lines, UTF_8);
+			Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		LOG.log(INFO, "Wrote {0} sessions to {1}", lines.size(), file);
+		return lines.size();
+	}
+}
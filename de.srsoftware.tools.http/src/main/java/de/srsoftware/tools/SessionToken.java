@@ -4,9 +4,8 @@ package de.srsoftware.tools; /* © SRSoftware 2024 */
 
 import com.sun.net.httpserver.Headers;
 import com.sun.net.httpserver.HttpExchange;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 
 
@@ -14,8 +13,7 @@ import java.util.Optional;
  * a special cookies allowing to keep track of a session
  */
 public class SessionToken extends Cookie {
-	private final String	       sessionId;
-	private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy HH:mm:ss O");
+	private final String sessionId;
 
 	/**
 	 * create a new sessoin token cookie carrying the given session id
@@ -25,16 +23,13 @@ public class SessionToken extends Cookie {
 	 * @param trust whether the cookie shall be persistent
 	 */
 	public SessionToken(String sessionId, String path, Instant expiration, boolean trust) {
-		super("sessionToken", sessionToken(sessionId, path, expiration, trust));
+		super("sessionToken", sessionId, path, trust && expiration != null ? lifetime(expiration) : null);
 		this.sessionId = sessionId;
 	}
 
-	private static String sessionToken(String sessionId, String path, Instant expiration, boolean trust) {
-		StringBuilder sb = new StringBuilder();
-		sb.append(sessionId);
-		if (path != null) sb.append("; Path=").append(path);
-		if (trust && expiration != null) sb.append("; Expires=").append(FORMAT.format(expiration.atZone(ZoneOffset.UTC)));
-		return sb.toString();
+	private static Duration lifetime(Instant expiration) {
+		var lifetime = Duration.between(Instant.now(), expiration);
+		return lifetime.isNegative() ? Duration.ZERO : lifetime;
 	}
 
 	/**
@@ -58,13 +53,8 @@ public class SessionToken extends Cookie {
 	 * @return an optional carrying a session token, if one was submitted in the exchange
 	 */
 	public static Optional<SessionToken> from(HttpExchange ex) {
-		return Cookie.of(ex)
-		    .stream()
-		    .filter(cookie -> cookie.startsWith("sessionToken="))
-		    .map(cookie -> cookie.split("=", 2)[1])
-			.filter(id -> !id.isBlank())
-		    .map(SessionToken::new)
-		    .findAny();
+		var id = RequestContext.of(ex).cookies().get("sessionToken");
+		return id == null || id.isBlank() ? Optional.empty() : Optional.of(new SessionToken(id));
 	}
 
 	/**
@@ -0,0 +1,229 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static de.srsoftware.tools.MimeType.guessMime;
+import static java.lang.System.Logger.Level.*;
+import static java.net.HttpURLConnection.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * PathHandler serving the files of a directory.
+ * Files are copied from their FileChannel into the response body in small chunks, without loading them into the heap.
+ * As the HttpServer only exposes the body as OutputStream, this is a buffered copy, not a zero-copy transfer.
+ * Supports single byte ranges (<em>Range</em>, <em>If-Range</em>) and conditional requests (<em>If-None-Match</em>, <em>If-Modified-Since</em>).
+ */
+public class StaticFileHandler extends PathHandler {
+	/** "Accept-Ranges" **/     public static final String ACCEPT_RANGES     = "Accept-Ranges";
+	/** "Cache-Control" **/     public static final String CACHE_CONTROL     = "Cache-Control";
+	/** "Content-Range" **/     public static final String CONTENT_RANGE     = "Content-Range";
+	/** "If-Modified-Since" **/ public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+	/** "If-Range" **/          public static final String IF_RANGE          = "If-Range";
+	/** "Last-Modified" **/     public static final String LAST_MODIFIED     = "Last-Modified";
+	/** "Range" **/             public static final String RANGE             = "Range";
+
+	private static final int               HTTP_RANGE_NOT_SATISFIABLE = 416;
+	private static final DateTimeFormatter HTTP_DATE                  = DateTimeFormatter.RFC_1123_DATE_TIME;
+
+	private final File root;
+	private String     indexFile = "index.html";
+	private Long       maxAge    = null;
+
+	private record Range(long start, long length) {
+		private static final Range UNSATISFIABLE = new Range(-1, 0);
+	}
+
+	/**
+	 * create a handler serving the files below the given directory
+	 * @param root the directory to serve
+	 */
+	public StaticFileHandler(File root) {
+		this.root = root.getAbsoluteFile();
+	}
+
+	/**
+	 * set the max-age of the <em>Cache-Control</em> header
+	 * @param seconds the number of seconds clients may cache files, null to omit the header
+	 * @return this handler
+	 */
+	public StaticFileHandler cacheFor(Long seconds) {
+		maxAge = seconds;
+		return this;
+	}
+
+	@Override
+	public boolean doGet(Path path, HttpExchange ex) throws IOException {
+		return serve(path, ex, false);
+	}
+
+	/**
+	 * compute the entity tag of a file
+	 * @param file the file
+	 * @return the quoted entity tag, derived from the size and modification time of the file
+	 */
+	public static String etag(File file) {
+		return "\"" + Long.toHexString(file.length()) + "-" + Long.toHexString(file.lastModified()) + "\"";
+	}
+
+	@Override
+	public boolean handleMethod(String method, Path path, HttpExchange ex) throws IOException {
+		if (HEAD.equals(method)) return serve(path, ex, true);
+		return super.handleMethod(method, path, ex);
+	}
+
+	/**
+	 * set the name of the file served for requests targeting a directory
+	 * @param name the file name, null to disable index files
+	 * @return this handler
+	 */
+	public StaticFileHandler indexFile(String name) {
+		indexFile = name;
+		return this;
+	}
+
+	/**
+	 * resolve the request path to a file below the root directory
+	 * @param path the request path
+	 * @return the file, or null, if the path leaves the root directory
+	 */
+	protected File resolve(Path path) {
+		var file = root;
+		for (var segment = path.pop(); segment != null; segment = path.pop()) {
+			if (segment.isEmpty() || segment.equals(".")) continue;
+			if (segment.equals("..") || segment.indexOf('/') >= 0 || segment.indexOf('\\') >= 0 || segment.indexOf(0) >= 0) return null;
+			file = new File(file, segment);
+		}
+		if (file.isDirectory() && indexFile != null) file = new File(file, indexFile);
+		return file;
+	}
+
+	/**
+	 * send a file to the client, honoring range and conditional request headers
+	 * @param ex the HttpExchange to respond to
+	 * @param file the file to send
+	 * @param headOnly if true, only the headers are sent
+	 * @return true, if the file was sent, false if the response has no body
+	 * @throws IOException if reading the file or writing the response fails
+	 */
+	public boolean sendFile(HttpExchange ex, File file, boolean headOnly) throws IOException {
+		var size         = file.length();
+		var lastModified = file.lastModified() / 1000 * 1000; // http dates have a resolution of seconds
+		var etag         = etag(file);
+		var headers      = ex.getResponseHeaders();
+		headers.set(ETAG, etag);
+		headers.set(LAST_MODIFIED, HTTP_DATE.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(lastModified), ZoneOffset.UTC)));
+		headers.set(ACCEPT_RANGES, "bytes");
+		if (maxAge != null) headers.set(CACHE_CONTROL, "max-age=" + maxAge);
+
+		if (notModified(ex, etag, lastModified)) {
+			LOG.log(DEBUG, "{0} not modified", file);
+			ex.sendResponseHeaders(HTTP_NOT_MODIFIED, -1);
+			return false;
+		}
+
+		var range = range(getHeader(ex, RANGE).orElse(null), size);
+		if (range != null && !getHeader(ex, IF_RANGE).map(value -> value.equals(etag) || sameDate(value, lastModified)).orElse(true)) range = null;
+		if (range == Range.UNSATISFIABLE) {
+			headers.set(CONTENT_RANGE, "bytes */" + size);
+			ex.sendResponseHeaders(HTTP_RANGE_NOT_SATISFIABLE, -1);
+			return false;
+		}
+
+		headers.set(CONTENT_TYPE, guessMime(file));
+		var status = HTTP_OK;
+		if (range == null) {
+			range = new Range(0, size);
+		} else {
+			status = HTTP_PARTIAL;
+			headers.set(CONTENT_RANGE, "bytes %d-%d/%d".formatted(range.start(), range.start() + range.length() - 1, size));
+		}
+		if (headOnly) {
+			headers.set(CONTENT_LENGTH, Long.toString(range.length()));
+			ex.sendResponseHeaders(status, -1);
+			return false;
+		}
+		ResponseCache.bypass(ex);
+		ex.sendResponseHeaders(status, range.length() == 0 ? -1 : range.length());
+		if (range.length() == 0) return false;
+		try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			var target   = Channels.newChannel(ex.getResponseBody());
+			var position = range.start();
+			var end      = range.start() + range.length();
+			while (position < end) {
+				var sent = channel.transferTo(position, end - position, target);
+				if (sent <= 0) throw new IOException("Failed to transfer %s: file was truncated".formatted(file));
+				position += sent;
+			}
+		}
+		return true;
+	}
+
+	private boolean serve(Path path, HttpExchange ex, boolean headOnly) throws IOException {
+		var file = resolve(path);
+		if (file == null) {
+			LOG.log(WARNING, "Rejecting request for {0}: path leaves {1}", ex.getRequestURI(), root);
+			return sendEmptyResponse(HTTP_FORBIDDEN, ex);
+		}
+		if (!file.isFile() || !file.canRead()) return notFound(ex);
+		return sendFile(ex, file, headOnly);
+	}
+
+	private static boolean notModified(HttpExchange ex, String etag, long lastModified) {
+		if (ex.getRequestHeaders().containsKey(IF_NONE_MATCH)) return etagMatches(ex, etag); // If-Modified-Since must be ignored, when If-None-Match is present
+		return getHeader(ex, IF_MODIFIED_SINCE).map(StaticFileHandler::parseDate).map(since -> lastModified <= since).orElse(false);
+	}
+
+	private static Long parseDate(String date) {
+		try {
+			return ZonedDateTime.parse(date.strip(), HTTP_DATE).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * parse a range header. Only single ranges are supported, multiple ranges are ignored.
+	 * @param header the value of the range header, may be null
+	 * @param size the size of the file
+	 * @return the requested range, null, if the whole file shall be sent or Range.UNSATISFIABLE
+	 */
+	private static Range range(String header, long size) {
+		if (header == null || !header.startsWith("bytes=")) return null;
+		var spec = header.substring(6).strip();
+		if (spec.contains(",")) return null;
+		var dash = spec.indexOf('-');
+		if (dash < 0) return null;
+		try {
+			var first = spec.substring(0, dash).strip();
+			var last  = spec.substring(dash + 1).strip();
+			if (first.isEmpty()) { // suffix range: the last n bytes
+				if (last.isEmpty()) return null;
+				var suffix = Long.parseLong(last);
+				if (suffix <= 0 || size == 0) return Range.UNSATISFIABLE;
+				return new Range(Math.max(0, size - suffix), Math.min(suffix, size));
+			}
+			var start = Long.parseLong(first);
+			var end   = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+			if (start >= size) return Range.UNSATISFIABLE;
+			if (end < start) return null;
+			return new Range(start, end - start + 1);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static boolean sameDate(String value, long lastModified) {
+		var date = parseDate(value);
+		return date != null && date == lastModified;
+	}
+}
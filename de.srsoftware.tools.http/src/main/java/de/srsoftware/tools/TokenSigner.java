@@ -0,0 +1,181 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools;
+
+import static java.lang.System.Logger.Level.*;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Creates and verifies self-contained, signed {@link SessionToken}s.
+ * A token carries its payload, its expiry and the id of the signing key, followed by an HMAC over these parts:
+ * <pre>base64url(payload).expiry.keyId.base64url(hmac)</pre>
+ * Verification only needs the key, so any node knowing the keys can authenticate a request without a session store.
+ * Keys can be rotated: new tokens are signed with the current key, while tokens signed with older keys stay valid until those keys are retired.
+ * Instances are thread-safe: every key keeps a pool of initialized {@link Mac}s, that grows to the number of concurrent signatures and is shared by all (virtual) threads.
+ */
+public class TokenSigner {
+	private static final System.Logger LOG       = System.getLogger(TokenSigner.class.getSimpleName());
+	private static final String        ALGORITHM = "HmacSHA256";
+	private static final char          DOT       = '.';
+
+	private final Map<String, Key> keys = new ConcurrentHashMap<>();
+	private volatile Key           current;
+
+	private static class Key {
+		private final String                     id;
+		private final SecretKeySpec              spec;
+		private final ConcurrentLinkedQueue<Mac> idle = new ConcurrentLinkedQueue<>();
+
+		private Key(String id, byte[] secret) {
+			this.id   = id;
+			this.spec = new SecretKeySpec(secret, ALGORITHM);
+			idle.add(newMac()); // fail early on invalid keys
+		}
+
+		private Mac newMac() {
+			try {
+				var mac = Mac.getInstance(ALGORITHM);
+				mac.init(spec);
+				return mac;
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		private byte[] sign(String data, int length) {
+			var mac = idle.poll();
+			if (mac == null) mac = newMac();
+			try {
+				for (int i = 0; i < length; i++) {
+					var c = data.charAt(i);
+					if (c > 0x7F) {
+						mac.reset();
+						throw new IllegalArgumentException("Tokens must not contain non-ascii characters");
+					}
+					mac.update((byte)c);
+				}
+				return mac.doFinal(); // resets the mac for the next use
+			} finally {
+				idle.add(mac);
+			}
+		}
+	}
+
+	/**
+	 * create a new signer
+	 * @param keyId the id of the signing key, may only contain ascii letters, digits, '-' and '_'
+	 * @param secret the secret key
+	 */
+	public TokenSigner(String keyId, byte[] secret) {
+		use(new Key(validId(keyId), secret));
+	}
+
+	/**
+	 * add a key, that is only used to verify tokens, e.g. the key used by a node before its restart
+	 * @param keyId the id of the key, may only contain ascii letters, digits, '-' and '_'
+	 * @param secret the secret key
+	 * @return this signer
+	 * @throws IllegalArgumentException if the key id is invalid or the id of the current signing key
+	 */
+	public TokenSigner accept(String keyId, byte[] secret) {
+		var key = new Key(validId(keyId), secret);
+		if (current.id.equals(key.id)) throw new IllegalArgumentException("Cannot replace the current signing key, use rotate(…) instead");
+		keys.put(key.id, key);
+		return this;
+	}
+
+	/**
+	 * stop accepting tokens signed with the given key
+	 * @param keyId the id of the key
+	 * @return this signer
+	 * @throws IllegalArgumentException if the key is the current signing key
+	 */
+	public TokenSigner retire(String keyId) {
+		if (current.id.equals(keyId)) throw new IllegalArgumentException("Cannot retire the current signing key");
+		keys.remove(keyId);
+		return this;
+	}
+
+	/**
+	 * make the given key the signing key. Previously used keys are still accepted for verification, until they are {@link #retire(String) retired}.
+	 * @param keyId the id of the new key, may only contain ascii letters, digits, '-' and '_'
+	 * @param secret the secret key
+	 * @return this signer
+	 */
+	public TokenSigner rotate(String keyId, byte[] secret) {
+		use(new Key(validId(keyId), secret));
+		return this;
+	}
+
+	/**
+	 * create a signed token
+	 * @param payload the data to carry, e.g. a user id
+	 * @param expiry the time after which the token is no longer accepted
+	 * @return the token, its session id is the signed string
+	 */
+	public SessionToken sign(String payload, Instant expiry) {
+		var key = current;
+		var sb  = new StringBuilder(Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(UTF_8)))
+			.append(DOT).append(expiry.getEpochSecond())
+			.append(DOT).append(key.id);
+		var length = sb.length();
+		var mac    = key.sign(sb.toString(), length);
+		return new SessionToken(sb.append(DOT).append(Base64.getUrlEncoder().withoutPadding().encodeToString(mac)).toString());
+	}
+
+	private void use(Key key) {
+		keys.put(key.id, key);
+		current = key;
+		LOG.log(DEBUG, "Signing tokens with key {0}", key.id);
+	}
+
+	private static String validId(String keyId) {
+		if (keyId == null || keyId.isEmpty() || !keyId.chars().allMatch(c -> c == '-' || c == '_' || Character.isLetterOrDigit(c) && c < 0x80)) throw new IllegalArgumentException("Invalid key id: %s".formatted(keyId));
+		return keyId;
+	}
+
+	/**
+	 * verify a signed token
+	 * @param token the string created by {@link #sign(String, Instant)}
+	 * @return the payload, or empty, if the token is malformed, expired, signed with an unknown key or its signature does not match
+	 */
+	public Optional<String> verify(String token) {
+		if (token == null) return Optional.empty();
+		int sig = token.lastIndexOf(DOT);
+		int kid = sig < 0 ? -1 : token.lastIndexOf(DOT, sig - 1);
+		int exp = kid < 0 ? -1 : token.lastIndexOf(DOT, kid - 1);
+		if (exp < 0) return Optional.empty();
+		try {
+			if (Long.parseLong(token, exp + 1, kid, 10) <= Instant.now().getEpochSecond()) return Optional.empty();
+			var key = keys.get(token.substring(kid + 1, sig));
+			if (key == null) return Optional.empty();
+			var expected = key.sign(token, sig);
+			var actual   = Base64.getUrlDecoder().decode(token.substring(sig + 1).getBytes(US_ASCII));
+			if (!MessageDigest.isEqual(expected, actual)) return Optional.empty();
+			return Optional.of(new String(Base64.getUrlDecoder().decode(token.substring(0, exp).getBytes(US_ASCII)), UTF_8));
+		} catch (IllegalArgumentException e) { // also covers NumberFormatException
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * verify the session token submitted with the request
+	 * @param ex the exchange carrying a session token cookie
+	 * @return the payload, or empty, if no valid token was submitted
+	 */
+	public Optional<String> verify(HttpExchange ex) {
+		return SessionToken.from(ex).map(SessionToken::sessionId).flatMap(this::verify);
+	}
+}
@@ -0,0 +1,102 @@
+/* © SRSoftware 2025 */
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+public class CompressionTest {
+	private static final String LARGE = "compressible text ".repeat(200);
+
+	private static class Echo extends PathHandler {
+		@Override
+		public boolean doGet(Path path, HttpExchange ex) throws IOException {
+			if (path.equals("json")) return sendContent(ex, Collections.nCopies(500, Map.of("key", "value")));
+			if (path.equals("small-json")) return sendContent(ex, List.of(1, 2, 3));
+			return sendContent(ex, path.equals("small") ? "small" : LARGE);
+		}
+
+		@Override
+		public boolean doPost(Path path, HttpExchange ex) throws IOException {
+			return sendContent(ex, body(ex));
+		}
+	}
+
+	private static TestServer server() throws IOException {
+		return new TestServer(new Echo(), "/echo");
+	}
+
+	@Test
+	void testGzip() throws Exception {
+		try (var server = server()) {
+			var response = server.getBytes("/echo/large", "Accept-Encoding", "deflate;q=0.5, gzip");
+			assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+			assertTrue(response.body().length < LARGE.length());
+			assertEquals(LARGE, new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(), UTF_8));
+		}
+	}
+
+	@Test
+	void testDeflate() throws Exception {
+		try (var server = server()) {
+			var response = server.getBytes("/echo/large", "Accept-Encoding", "gzip;q=0, deflate");
+			assertEquals("deflate", response.headers().firstValue("Content-Encoding").orElse(null));
+			assertEquals(LARGE, new String(new InflaterInputStream(new ByteArrayInputStream(response.body())).readAllBytes(), UTF_8));
+		}
+	}
+
+	@Test
+	void testUncompressed() throws Exception {
+		try (var server = server()) {
+			var response = server.getBytes("/echo/large");
+			assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+			assertEquals(LARGE, new String(response.body(), UTF_8));
+
+			response = server.getBytes("/echo/small", "Accept-Encoding", "gzip");
+			assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+			assertEquals("small", new String(response.body(), UTF_8));
+		}
+	}
+
+	@Test
+	void testJson() throws Exception {
+		try (var server = server()) {
+			var response = server.getBytes("/echo/json", "Accept-Encoding", "gzip");
+			assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+			assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+			var json = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(), UTF_8);
+			assertEquals("[{\"key\":\"value\"},{", json.substring(0, 18));
+			assertEquals(500 * 16 + 1, json.length());
+
+			response = server.getBytes("/echo/small-json", "Accept-Encoding", "gzip");
+			assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+			assertEquals("7", response.headers().firstValue("Content-Length").orElse(null));
+			assertEquals("[1,2,3]", new String(response.body(), UTF_8));
+		}
+	}
+
+	@Test
+	void testGzipRequest() throws Exception {
+		try (var server = server()) {
+			var buffer = new ByteArrayOutputStream();
+			try (var gzip = new GZIPOutputStream(buffer)) {
+				gzip.write("hello".getBytes(UTF_8));
+			}
+			var request = server.request("/echo/", "Content-Encoding", "gzip").POST(HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray())).build();
+			assertEquals("hello", server.client.send(request, HttpResponse.BodyHandlers.ofString()).body());
+		}
+	}
+}
@@ -0,0 +1,46 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.Headers;
+import de.srsoftware.tools.Cookies;
+import de.srsoftware.tools.SessionToken;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class CookiesTest {
+	@Test
+	void testParse() {
+		var cookies = Cookies.parse(" a=1;b = two ;flag; c=;a=ignored; =x");
+		assertEquals(3, cookies.size());
+		assertEquals("1", cookies.get("a"));
+		assertEquals("two", cookies.get("b"));
+		assertEquals("", cookies.get("c"));
+		assertNull(cookies.get("flag"));
+		assertTrue(cookies.containsKey("c"));
+		assertFalse(cookies.containsKey("x"));
+		assertEquals(Map.of("a", "1", "b", "two", "c", ""), Map.copyOf(cookies));
+		assertEquals(List.of("a=1", "b = two", "c="), cookies.toList());
+		assertTrue(Cookies.parse(null).isEmpty());
+		assertTrue(Cookies.parse("  ").isEmpty());
+	}
+
+	@Test
+	void testAttributes() {
+		var headers = new Headers();
+		new SessionToken("abc").path("/").maxAge(Duration.ofHours(1)).secure(true).httpOnly(true).sameSite("Strict").addTo(headers);
+		assertEquals("sessionToken=abc; Path=/; Max-Age=3600; Secure; HttpOnly; SameSite=Strict", headers.getFirst("Set-Cookie"));
+		assertEquals("sessionToken=abc", new SessionToken("abc").toString());
+	}
+
+	@Test
+	void testLegacyConstructor() {
+		var token = new SessionToken("abc", "/app", Instant.now().plus(Duration.ofHours(1)), true);
+		assertEquals("abc", token.getValue());
+		assertTrue(token.toString().matches("sessionToken=abc; Path=/app; Max-Age=(3599|3600)"), token.toString());
+		assertEquals("sessionToken=abc; Path=/app", new SessionToken("abc", "/app", Instant.now().plusSeconds(60), false).toString());
+		assertEquals("sessionToken=abc; Max-Age=0", new SessionToken("abc", null, Instant.now().minusSeconds(60), true).toString());
+	}
+}
@@ -0,0 +1,86 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class ETagTest {
+	private static List<Map<String, Object>> list(int size) { // about 15 bytes per element
+		return IntStream.range(0, size).mapToObj(i -> Map.<String, Object>of("value", i)).toList();
+	}
+
+	@Test
+	void testConditionalGet() throws Exception {
+		var builds  = new AtomicInteger();
+		var handler = new PathHandler() {
+			@Override
+			public boolean doGet(Path path, HttpExchange ex) throws IOException {
+				return switch (path.pop()) {
+					case "json" -> sendContent(ex, Map.of("value", 42));
+					case "large" -> sendContent(ex, list(2000)); // exceeds the response buffer
+					case "huge" -> sendContent(ex, list(6000)); // exceeds the tagging limit
+					case "text" -> sendContent(ex, "x".repeat(5000));
+					case "versioned" -> {
+						if (sendNotModified(ex, "v1")) yield true;
+						builds.incrementAndGet();
+						yield sendContent(ex, "expensive");
+					}
+					case null, default -> notFound(ex);
+				};
+			}
+		};
+		handler.etags(64 * 1024);
+		try (var server = new TestServer(handler, "/etag")) {
+			for (var path : new String[]{"json", "large", "text"}) {
+				var first = server.get("/etag/" + path);
+				var etag  = first.headers().firstValue("ETag").orElse(null);
+				assertNotNull(etag);
+				assertTrue(etag.startsWith("\"") && etag.endsWith("\""), etag);
+
+				var second = server.get("/etag/" + path, "If-None-Match", "\"other\", " + etag);
+				assertEquals(304, second.statusCode(), path);
+				assertEquals("", second.body());
+				assertEquals(etag, second.headers().firstValue("ETag").orElse(null));
+
+				var gzip = server.getBytes("/etag/" + path, "Accept-Encoding", "gzip", "If-None-Match", etag);
+				if (!path.equals("json")) { // compressed, so it is another representation
+					assertEquals(200, gzip.statusCode());
+					assertNotEquals(etag, gzip.headers().firstValue("ETag").orElse(null));
+				} else {
+					assertEquals(304, gzip.statusCode());
+				}
+			}
+
+			var huge = server.get("/etag/huge");
+			assertTrue(huge.body().length() > 64 * 1024);
+			assertTrue(huge.headers().firstValue("ETag").isEmpty());
+
+			var versioned = server.get("/etag/versioned");
+			assertEquals("\"v1\"", versioned.headers().firstValue("ETag").orElse(null));
+			assertEquals("expensive", versioned.body());
+			var cached = server.get("/etag/versioned", "If-None-Match", "W/\"v1\"");
+			assertEquals(304, cached.statusCode());
+			assertEquals(1, builds.get());
+		}
+	}
+
+	@Test
+	void testDisabledByDefault() throws Exception {
+		var handler = new PathHandler() {
+			@Override
+			public boolean doGet(Path path, HttpExchange ex) throws IOException {
+				return sendContent(ex, Map.of("value", 42));
+			}
+		};
+		try (var server = new TestServer(handler, "/etag")) {
+			assertTrue(server.get("/etag/json").headers().firstValue("ETag").isEmpty());
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.EventBroadcaster;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class EventBroadcasterTest {
+	@Test
+	void testReplayAndFanOut() throws Exception {
+		var broadcaster = new EventBroadcaster().heartbeat(Duration.ofSeconds(5));
+		try (var server = server(broadcaster)) {
+			var first = broadcaster.publish("news", null, "first");
+			broadcaster.publish("news", "update", Map.of("n", 2));
+			broadcaster.publish("other", null, "ignored");
+
+			var resumed = server.client.sendAsync(server.request("/events/news", "Last-Event-ID", Long.toString(first)).build(), HttpResponse.BodyHandlers.ofLines());
+			var fresh   = server.client.sendAsync(server.request("/events/news").build(), HttpResponse.BodyHandlers.ofLines());
+			for (int i = 0; i < 100 && broadcaster.subscribers("news") < 2; i++) Thread.sleep(20);
+			assertEquals(2, broadcaster.subscribers("news"));
+
+			broadcaster.publish("news", null, "line1\nline2");
+			broadcaster.close();
+
+			var lines = new ArrayList<String>();
+			resumed.get().body().filter(line -> !line.isEmpty()).forEach(lines::add);
+			assertEquals("text/event-stream", resumed.get().headers().firstValue("Content-Type").orElse(null));
+			assertEquals(6, lines.size(), lines.toString());
+			assertEquals("event: update", lines.get(1));
+			assertEquals("data: {\"n\":2}", lines.get(2));
+			assertEquals("data: line1", lines.get(4));
+			assertEquals("data: line2", lines.get(5));
+
+			lines.clear();
+			fresh.get().body().filter(line -> !line.isEmpty()).forEach(lines::add);
+			assertEquals(3, lines.size(), lines.toString());
+			assertEquals("data: line1", lines.get(1));
+		}
+	}
+
+	private static TestServer server(EventBroadcaster broadcaster) throws IOException {
+		return new TestServer(new PathHandler() {
+			@Override
+			public boolean doGet(Path path, HttpExchange ex) throws IOException {
+				return broadcaster.subscribe(path.pop(), ex);
+			}
+		}, "/events");
+	}
+
+	@Test
+	void testPublishAfterClose() throws Exception {
+		var broadcaster = new EventBroadcaster().queueSize(1).heartbeat(Duration.ofMinutes(1));
+		try (var server = server(broadcaster)) {
+			var response = server.client.sendAsync(server.request("/events/news").build(), HttpResponse.BodyHandlers.ofString());
+			for (int i = 0; i < 100 && broadcaster.subscribers("news") < 1; i++) Thread.sleep(20);
+			broadcaster.close();
+			for (int i = 0; i < 100; i++) assertEquals(-1, broadcaster.publish("news", null, "late"));
+			assertEquals("", response.get(5, TimeUnit.SECONDS).body()); // ends without waiting for a heartbeat
+		}
+	}
+
+	@Test
+	void testTopicCleanup() throws Exception {
+		var broadcaster = new EventBroadcaster().replay(0).heartbeat(Duration.ofMinutes(1));
+		for (int i = 0; i < 100; i++) broadcaster.publish("user-" + i, null, "unheard");
+		assertEquals(0, broadcaster.topics());
+		try (var server = server(broadcaster)) {
+			var response = server.client.sendAsync(server.request("/events/user-1").build(), HttpResponse.BodyHandlers.ofString());
+			for (int i = 0; i < 100 && broadcaster.subscribers("user-1") < 1; i++) Thread.sleep(20);
+			assertEquals(1, broadcaster.topics());
+			broadcaster.publish("user-1", null, "heard");
+			broadcaster.close();
+			assertTrue(response.get(5, TimeUnit.SECONDS).body().contains("data: heard"));
+			for (int i = 0; i < 100 && broadcaster.topics() > 0; i++) Thread.sleep(20);
+			assertEquals(0, broadcaster.topics());
+		}
+	}
+
+	@Test
+	void testIdleTopicExpiry() throws Exception {
+		var broadcaster = new EventBroadcaster().idle(Duration.ofMillis(100)).heartbeat(Duration.ofMinutes(1));
+		try (var server = server(broadcaster)) {
+			var response = server.client.sendAsync(server.request("/events/news").build(), HttpResponse.BodyHandlers.ofString());
+			for (int i = 0; i < 100 && broadcaster.subscribers("news") < 1; i++) Thread.sleep(20);
+			for (int i = 0; i < 100; i++) broadcaster.publish("user-" + i, null, "kept for replay");
+			broadcaster.publish("news", null, "heard");
+			for (int i = 0; i < 250 && broadcaster.topics() > 1; i++) Thread.sleep(20);
+			assertEquals(1, broadcaster.topics()); // the subscribed topic stays
+			broadcaster.close();
+			assertTrue(response.get(5, TimeUnit.SECONDS).body().contains("data: heard"));
+			for (int i = 0; i < 250 && broadcaster.topics() > 0; i++) Thread.sleep(20);
+			assertEquals(0, broadcaster.topics());
+		}
+	}
+
+	@Test
+	void testEventNames() {
+		var broadcaster = new EventBroadcaster();
+		assertThrows(IllegalArgumentException.class, () -> broadcaster.publish("news", "update\ndata: injected", "x"));
+		assertThrows(IllegalArgumentException.class, () -> broadcaster.publish("news", "update\rid: 1", "x"));
+	}
+}
@@ -0,0 +1,56 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.JsonWriter;
+import de.srsoftware.tools.Mappable;
+import de.srsoftware.tools.container.Payload;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+import java.util.stream.Stream;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+public class JsonWriterTest {
+	private enum Color { RED }
+
+	private static String json(Object o) throws IOException {
+		var writer = new StringWriter();
+		JsonWriter.write(o, writer);
+		return writer.toString();
+	}
+
+	@Test
+	void testPrimitives() throws IOException {
+		assertEquals("null", json(null));
+		assertEquals("\"a\\\"b\\nc\"", json("a\"b\nc"));
+		assertEquals("42", json(42));
+		assertEquals("1.5", json(1.5));
+		assertEquals("true", json(true));
+		assertEquals("\"RED\"", json(Color.RED));
+		assertThrows(JSONException.class, () -> json(Double.NaN));
+	}
+
+	@Test
+	void testStructures() throws IOException {
+		var map = new LinkedHashMap<String, Object>();
+		map.put("name", "test");
+		map.put("skipped", null);
+		map.put("list", List.of(1, "two", List.of()));
+		map.put("nested", Map.of("x", 1));
+		assertEquals("{\"name\":\"test\",\"list\":[1,\"two\",[]],\"nested\":{\"x\":1}}", json(map));
+		assertEquals("[1,2,3]", json(new int[]{1, 2, 3}));
+		assertEquals("[\"a\",\"b\"]", json(Stream.of("a", "b")));
+		assertEquals("[null]", json(Collections.singletonList(null)));
+	}
+
+	@Test
+	void testContainers() throws IOException {
+		Mappable mappable = () -> Map.of("id", 7);
+		assertEquals("{\"id\":7}", json(mappable));
+		assertEquals("[{\"id\":7}]", json(new Payload<>(List.of(mappable))));
+		assertTrue(JsonWriter.isStructure(mappable));
+		assertTrue(JsonWriter.isStructure(Set.of()));
+		assertFalse(JsonWriter.isStructure("text"));
+	}
+}
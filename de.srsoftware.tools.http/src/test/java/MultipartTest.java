@@ -0,0 +1,108 @@
+/* © SRSoftware 2025 */
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.MultipartParser;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class MultipartTest {
+	private static final String BOUNDARY = "----boundary42";
+	private static final String BODY     = "preamble\r\n"
+		+ "------boundary42\r\n"
+		+ "Content-Disposition: form-data; name=\"title\"\r\n\r\n"
+		+ "Hello\r\nWorld\r\n"
+		+ "------boundary42\r\n"
+		+ "Content-Disposition: form-data; name=\"tags\"\r\n\r\n"
+		+ "a\r\n"
+		+ "------boundary42\r\n"
+		+ "Content-Disposition: form-data; name=\"tags\"\r\n\r\n"
+		+ "b\r\n"
+		+ "------boundary42\r\n"
+		+ "Content-Disposition: form-data; name=\"upload\"; filename=\"data.bin\"\r\n"
+		+ "Content-Type: application/octet-stream\r\n\r\n"
+		+ "0123456789".repeat(100) + "\r\n"
+		+ "------boundary42--\r\n"
+		+ "epilogue";
+
+	/** returns at most 7 bytes per read, so delimiters span several reads **/
+	private static InputStream trickle(String body) {
+		return new FilterInputStream(new ByteArrayInputStream(body.getBytes(UTF_8))) {
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				return super.read(b, off, Math.min(len, 7));
+			}
+		};
+	}
+
+	@Test
+	void testParts() throws IOException {
+		var parser = new MultipartParser(trickle(BODY), BOUNDARY);
+		var title  = parser.next();
+		assertEquals("title", title.name());
+		assertNull(title.filename());
+		assertEquals("Hello\r\nWorld", title.string());
+		assertEquals("a", parser.next().string());
+		assertEquals("b", parser.next().string());
+		try (var upload = parser.next()) {
+			assertEquals("data.bin", upload.filename());
+			assertEquals("application/octet-stream", upload.contentType());
+			assertEquals(1000, upload.size());
+			assertNull(upload.file());
+		}
+		assertNull(parser.next());
+	}
+
+	@Test
+	void testSpill() throws IOException {
+		var parser = new MultipartParser(trickle(BODY), BOUNDARY).spillAbove(100);
+		var data   = parser.formData();
+		assertEquals("Hello\r\nWorld", data.get("title"));
+		assertEquals(List.of("a", "b"), data.get("tags"));
+		File file;
+		try (var upload = (MultipartParser.Part)data.get("upload")) {
+			file = upload.file();
+			assertNotNull(file);
+			assertTrue(file.exists());
+			if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file.toPath()));
+			assertEquals("0123456789".repeat(100), upload.string());
+		}
+		assertFalse(file.exists()); // deleted on close
+	}
+
+	@Test
+	void testLimits() {
+		assertThrows(MultipartParser.LimitExceeded.class, () -> new MultipartParser(trickle(BODY), BOUNDARY).maxParts(3).formData());
+		assertThrows(MultipartParser.LimitExceeded.class, () -> new MultipartParser(trickle(BODY), BOUNDARY).maxPartSize(999).formData());
+		assertThrows(MultipartParser.LimitExceeded.class, () -> new MultipartParser(trickle(BODY), BOUNDARY).maxTotalSize(1000).formData());
+		assertThrows(IOException.class, () -> new MultipartParser(trickle(BODY.substring(0, 200)), BOUNDARY).formData());
+	}
+
+	@Test
+	void testPreambleLimit() {
+		var body = "x".repeat(10_000) + "\r\n" + BODY;
+		var e    = assertThrows(MultipartParser.LimitExceeded.class, () -> new MultipartParser(trickle(body), BOUNDARY).maxTotalSize(5000).next());
+		assertEquals("Body exceeds 5000 bytes", e.getMessage());
+	}
+
+	@Test
+	void testQuotedParameters() throws IOException {
+		var body = "------boundary42\r\n"
+			+ "Content-Disposition: form-data; name=\"up;load\"; filename=\"a;b \\\"c\\\".pdf\"\r\n\r\n"
+			+ "%PDF\r\n"
+			+ "------boundary42--\r\n";
+		try (var part = new MultipartParser(trickle(body), BOUNDARY).next()) {
+			assertEquals("up;load", part.name());
+			assertEquals("a;b \"c\".pdf", part.filename());
+			assertEquals("%PDF", part.string());
+		}
+	}
+}
@@ -1,5 +1,6 @@
 /* © SRSoftware 2025 */
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.sun.net.httpserver.*;
@@ -209,4 +210,28 @@ public class PathTest {
 		assertEquals("test",path.pop());
 		assertTrue(path.isEmpty());
 	}
+
+	@Test
+	void testDecodedSegments(){
+		var path = Path.of("/files/my%20file.txt/a+b");
+		assertEquals("files/my%20file.txt/a+b",path.toString());
+		assertEquals("files",path.pop());
+		assertEquals("my%20file.txt/a+b",path.toString());
+		assertTrue(path.endsWith(".txt"));
+		assertEquals("my file.txt",path.peek());
+		assertEquals("my file.txt",path.pop());
+		assertTrue(path.equals("a b"));
+		assertEquals("a b",path.pop());
+		assertNull(path.pop());
+		assertEquals("/",path.toString());
+	}
+
+	@Test
+	void testEmptySegments(){
+		var path = Path.of("a//b");
+		assertEquals(3,path.size());
+		assertEquals("a",path.pop());
+		assertEquals("",path.pop());
+		assertEquals("b",path.pop());
+	}
 }
@@ -2,6 +2,7 @@
 import static de.srsoftware.tools.Query.decode;
 import static de.srsoftware.tools.Query.encode;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -86,5 +87,23 @@ public class QueryTest {
 		assertEquals(expected,map);
 	}
 
+	@Test
+	public void testDecodeValueless(){
+		var map = decode("a&b=1&&c=");
+		var expected = Map.of("a","","b","1","c","");
+		assertEquals(expected,map);
+	}
 
+	@Test
+	public void testDecodeEncodedKeysAndUnicode(){
+		var map = decode("na+me=J%C3%BCrgen+M%C3%BCller&list%5B%5D=1&list%5B%5D=2&%E2%82%AC=euro");
+		var expected = Map.of("na me","Jürgen Müller","list",List.of("1","2"),"€","euro");
+		assertEquals(expected,map);
+	}
+
+	@Test
+	public void testDecodeMalformed(){
+		assertThrows(IllegalArgumentException.class, () -> decode("a=%2"));
+		assertThrows(IllegalArgumentException.class, () -> decode("a=%zz"));
+	}
 }
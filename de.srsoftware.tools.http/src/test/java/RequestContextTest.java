@@ -0,0 +1,69 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.MultipartParser;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import de.srsoftware.tools.RequestContext;
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RequestContextTest {
+	@Test
+	void testMemoisation() throws Exception {
+		var handler = new PathHandler() {
+			@Override
+			public boolean doPost(Path path, HttpExchange ex) throws IOException {
+				var context = RequestContext.of(ex);
+				assertSame(context, RequestContext.of(ex));
+				assertEquals("{\"a\":1}", body(ex));
+				assertEquals("{\"a\":1}", body(ex)); // read again from the buffered body
+				assertSame(json(ex), json(ex));
+				assertSame(queryParam(ex), context.queryParam());
+				assertSame(languages(ex), languages(ex));
+				assertEquals("bob", getBasicAuth(ex).map(BasicAuth::userId).orElse(null));
+				return sendContent(ex, queryParam(ex).get("x") + " " + languages(ex));
+			}
+		};
+		try (var server = new TestServer(handler, "/ctx")) {
+			var auth    = "Basic " + Base64.getEncoder().encodeToString("bob:secret".getBytes());
+			var request = server.request("/ctx/?x=1", "Accept-Language", "de,en", "Authorization", auth)
+				.POST(HttpRequest.BodyPublishers.ofString("{\"a\":1}"))
+				.build();
+			var response = server.client.send(request, HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, response.statusCode(), response.body());
+			assertEquals("1 [de, en]", response.body());
+		}
+	}
+
+	@Test
+	void testUploadsClosed() throws Exception {
+		var files   = new ArrayList<File>();
+		var handler = new PathHandler() {
+			@Override
+			public boolean doPost(Path path, HttpExchange ex) throws IOException {
+				for (var upload : (List<?>)formData(ex).get("upload")) files.add(((MultipartParser.Part)upload).file());
+				return sendContent(ex, files.stream().allMatch(File::exists) + " " + files.size());
+			}
+		};
+		var upload = "x".repeat(100_000);
+		var body   = "--b\r\nContent-Disposition: form-data; name=\"upload\"; filename=\"a.txt\"\r\n\r\n" + upload + "\r\n"
+			+ "--b\r\nContent-Disposition: form-data; name=\"upload\"; filename=\"b.txt\"\r\n\r\n" + upload + "\r\n--b--\r\n";
+		try (var server = new TestServer(handler, "/ctx")) {
+			var request = server.request("/ctx/", "Content-Type", "multipart/form-data; boundary=b")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+			var response = server.client.send(request, HttpResponse.BodyHandlers.ofString());
+			assertEquals("true 2", response.body());
+			for (int i = 0; i < 100 && files.stream().anyMatch(File::exists); i++) Thread.sleep(20); // the client may receive the response before the handler returns
+			assertTrue(files.stream().noneMatch(File::exists));
+		}
+	}
+}
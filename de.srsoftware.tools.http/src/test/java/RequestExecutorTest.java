@@ -0,0 +1,123 @@
+/* © SRSoftware 2025 */
+import static java.net.HttpURLConnection.HTTP_UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import de.srsoftware.tools.RequestExecutor;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+public class RequestExecutorTest {
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private final PathHandler handler = new PathHandler() {
+		@Override
+		public boolean doGet(Path path, HttpExchange ex) throws IOException {
+			var interrupted = false;
+			while (true) { // keeps the slot until released, so interrupted requests cannot take it over
+				try {
+					if (!release.await(5, TimeUnit.SECONDS)) return sendContent(ex, "timeout");
+					return sendContent(ex, interrupted ? "interrupted" : "released");
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		}
+	};
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		for (int i = 0; i < 250 && !condition.getAsBoolean(); i++) Thread.sleep(20);
+		assertTrue(condition.getAsBoolean());
+	}
+
+	@Test
+	void testQueueLimit() throws Exception {
+		var executor = RequestExecutor.bounded(1, 1);
+		try (var server = new TestServer(handler, "/limited", executor)) {
+			var first = server.client.sendAsync(server.request("/limited").build(), HttpResponse.BodyHandlers.ofString());
+			await(() -> executor.metrics().active() == 1);
+			var second = server.client.sendAsync(server.request("/limited").build(), HttpResponse.BodyHandlers.ofString());
+			await(() -> executor.metrics().waiting() == 1);
+			assertEquals(HTTP_UNAVAILABLE, server.get("/limited").statusCode()); // queue full
+			assertEquals(1, executor.metrics().rejected());
+
+			release.countDown();
+			assertEquals("released", first.get(5, TimeUnit.SECONDS).body());
+			assertEquals("released", second.get(5, TimeUnit.SECONDS).body());
+			await(() -> executor.metrics().completed() == 2);
+		}
+	}
+
+	@Test
+	void testGuardedContext() throws Exception {
+		var executor = RequestExecutor.bounded(1, 0);
+		var server   = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.setExecutor(executor);
+		RequestExecutor.guard(server.createContext("/plain", ex -> { // not a PathHandler
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			ex.sendResponseHeaders(200, -1);
+			ex.close();
+		}));
+		server.start();
+		try {
+			var client = HttpClient.newHttpClient();
+			var uri    = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/plain");
+			var first  = client.sendAsync(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding());
+			await(() -> executor.metrics().active() == 1);
+			assertEquals(HTTP_UNAVAILABLE, client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding()).statusCode());
+			release.countDown();
+			assertEquals(200, first.get(5, TimeUnit.SECONDS).statusCode());
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	void testShutdownNow() throws Exception {
+		var executor = RequestExecutor.bounded(1, 1);
+		try (var server = new TestServer(handler, "/limited", executor)) {
+			var running = server.client.sendAsync(server.request("/limited").build(), HttpResponse.BodyHandlers.ofString());
+			await(() -> executor.metrics().active() == 1);
+			var queued = server.client.sendAsync(server.request("/limited").build(), HttpResponse.BodyHandlers.ofString());
+			await(() -> executor.metrics().waiting() == 1);
+
+			executor.shutdownNow();
+			assertEquals(HTTP_UNAVAILABLE, queued.get(5, TimeUnit.SECONDS).statusCode()); // answered, not left hanging
+			release.countDown();
+			assertEquals("interrupted", running.get(5, TimeUnit.SECONDS).body());
+			await(() -> executor.metrics().active() == 0 && executor.metrics().waiting() == 0);
+
+			assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {}));
+			assertEquals(0, executor.metrics().active());
+			assertEquals(0, executor.metrics().waiting());
+		}
+	}
+
+	@Test
+	void testStartedServer() throws Exception {
+		var server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.start();
+		try {
+			assertThrows(IllegalStateException.class, () -> handler.bindPath("/late").on(server, RequestExecutor.virtual()));
+			handler.bindPath("/late").on(server); // keeps the default executor
+		} finally {
+			server.stop(0);
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import de.srsoftware.tools.ResponseCache;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+public class ResponseCacheTest {
+	private final AtomicInteger  builds  = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private static String get(TestServer server, String path, String... headers) throws Exception {
+		var response = server.get(path, headers);
+		assertEquals(200, response.statusCode());
+		return response.body();
+	}
+
+	private TestServer server(ResponseCache cache) throws IOException {
+		var handler = new PathHandler() {
+			@Override
+			public boolean doGet(Path path, HttpExchange ex) throws IOException {
+				var build = builds.incrementAndGet();
+				return switch (path.pop()) {
+					case "slow" -> {
+						try {
+							Thread.sleep(300);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						yield sendContent(ex, "slow " + build);
+					}
+					case "cookie" -> {
+						ex.getResponseHeaders().add("Set-Cookie", "a=b");
+						yield sendContent(ex, "cookie " + build);
+					}
+					case "large" -> sendContent(ex, "x".repeat(5000));
+					case "localized" -> {
+						ex.getResponseHeaders().add("Vary", "Accept-Language");
+						yield sendContent(ex, languages(ex) + " " + build);
+					}
+					case "list" -> sendContent(ex, Stream.of(0, 1));
+					case "varying" -> {
+						ex.getResponseHeaders().add("Vary", "Accept-Language");
+						yield sendContent(ex, "y".repeat(5000));
+					}
+					case "stream" -> sendContent(ex, Stream.of(0, 1).peek(i -> {
+						if (i == 1 && build == 1) awaitRelease(); // the first request keeps streaming
+					}));
+					case "broken" -> {
+						try {
+							yield sendContent(ex, Map.of("value", Double.NaN));
+						} catch (JSONException e) {
+							yield serverError(ex, e.getMessage());
+						}
+					}
+					case null, default -> sendContent(ex, languages(ex) + " " + queryParam(ex) + " " + build);
+				};
+			}
+		};
+		handler.cache(cache).etags(true).flushEvery(Duration.ZERO);
+		return new TestServer(handler, "/cached");
+	}
+
+	private void awaitRelease() {
+		try {
+			release.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	void testFailedRendering() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20);
+		try (var server = server(cache)) {
+			for (int i = 0; i < 2; i++) assertEquals(500, server.get("/cached/broken").statusCode());
+			assertEquals(2, builds.get());
+			assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	void testHitsAndKeys() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 100, 1 << 20).vary("Accept-Language");
+		try (var server = server(cache)) {
+			var first = get(server, "/cached/data?a=1&b=2");
+			assertEquals(first, get(server, "/cached/data?b=2&a=1")); // parameter order does not matter
+			assertEquals(1, builds.get());
+			assertNotEquals(first, get(server, "/cached/data?a=1&b=2", "Accept-Language", "de"));
+			assertEquals(2, builds.get());
+			get(server, "/cached/cookie");
+			get(server, "/cached/cookie");
+			assertEquals(4, builds.get()); // responses setting cookies are not stored
+			assertEquals(2, cache.size());
+
+			assertEquals(2, cache.invalidate("/cached/data"));
+			get(server, "/cached/data?a=1&b=2");
+			assertEquals(5, builds.get());
+		}
+	}
+
+	@Test
+	void testCredentials() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 100, 1 << 20);
+		try (var server = server(cache)) {
+			assertNotEquals(get(server, "/cached/data", "Cookie", "session=alice"), get(server, "/cached/data", "Cookie", "session=bob"));
+			assertNotEquals(get(server, "/cached/data", "Authorization", "Bearer alice"), get(server, "/cached/data", "Authorization", "Bearer alice"));
+			assertEquals(4, builds.get());
+			assertEquals(0, cache.size());
+		}
+		cache.vary("Cookie");
+		try (var server = server(cache)) {
+			var alice = get(server, "/cached/data", "Cookie", "session=alice");
+			assertEquals(alice, get(server, "/cached/data", "Cookie", "session=alice"));
+			assertNotEquals(alice, get(server, "/cached/data", "Cookie", "session=bob"));
+			assertEquals(6, builds.get());
+		}
+	}
+
+	@Test
+	void testExpiryAndEviction() throws Exception {
+		var cache = new ResponseCache(Duration.ofMillis(200), 2, 1 << 20);
+		try (var server = server(cache)) {
+			get(server, "/cached/a");
+			get(server, "/cached/b");
+			get(server, "/cached/a");
+			get(server, "/cached/c"); // evicts b
+			assertEquals(3, builds.get());
+			assertEquals(2, cache.size());
+			get(server, "/cached/a");
+			assertEquals(3, builds.get());
+			get(server, "/cached/b");
+			assertEquals(4, builds.get());
+			Thread.sleep(250);
+			get(server, "/cached/a");
+			assertEquals(5, builds.get());
+		}
+	}
+
+	@Test
+	void testRepeatedParameters() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 100, 1 << 20);
+		try (var server = server(cache)) {
+			var first = get(server, "/cached/data?b=0&a=1&a=2");
+			assertEquals(first, get(server, "/cached/data?a=1&b=0&a=2")); // only the order of names is irrelevant
+			assertEquals(1, builds.get());
+			assertNotEquals(first, get(server, "/cached/data?a=2&a=1&b=0"));
+			assertEquals(2, builds.get());
+		}
+	}
+
+	@Test
+	void testStreamedResponse() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20).waitAtMost(Duration.ofMinutes(1));
+		try (var server = server(cache)) {
+			var streaming = server.client.sendAsync(server.request("/cached/stream").build(), HttpResponse.BodyHandlers.ofString());
+			while (builds.get() < 1) Thread.sleep(10);
+			var other = server.client.sendAsync(server.request("/cached/stream").build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals("[0,1]", other.get(10, TimeUnit.SECONDS).body()); // does not wait for the first request to finish
+			assertFalse(streaming.isDone());
+			release.countDown();
+			assertEquals("[0,1]", streaming.get().body());
+			assertEquals(0, cache.size());
+		}
+	}
+
+	@Test
+	void testPrecompressed() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20).precompress(true);
+		try (var server = server(cache)) {
+			get(server, "/cached/large");
+			var response = server.getBytes("/cached/large", "Accept-Encoding", "gzip");
+			assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+			assertTrue(response.body().length < 5000);
+			var etag  = response.headers().firstValue("ETag").orElseThrow();
+			var again = server.getBytes("/cached/large", "Accept-Encoding", "gzip", "If-None-Match", etag);
+			assertEquals(304, again.statusCode());
+			assertEquals(1, builds.get());
+			assertTrue(cache.bytes() > 5000);
+		}
+	}
+
+	@Test
+	void testVaryHeader() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20).precompress(true).vary("Accept-Language");
+		try (var server = server(cache)) {
+			for (int i = 0; i < 2; i++) {
+				var response = server.getBytes("/cached/varying", "Accept-Encoding", "gzip");
+				assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+				assertEquals(List.of("Accept-Language", "Accept-Encoding"), response.headers().allValues("Vary"));
+			}
+			assertEquals(List.of("Accept-Language"), server.get("/cached/varying").headers().allValues("Vary"));
+			assertEquals(1, builds.get());
+		}
+	}
+
+	@Test
+	void testUnselectedVaryHeader() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20);
+		try (var server = server(cache)) {
+			var german  = get(server, "/cached/localized", "Accept-Language", "de");
+			var english = get(server, "/cached/localized", "Accept-Language", "en");
+			assertTrue(german.startsWith("[de]"), german);
+			assertTrue(english.startsWith("[en]"), english);
+
+			assertEquals("0\n1\n", get(server, "/cached/list", "Accept", "application/x-ndjson"));
+			assertEquals("[0,1]", get(server, "/cached/list", "Accept", "application/json"));
+			assertEquals(4, builds.get());
+			assertEquals(0, cache.size()); // the responses vary on headers, that are not part of the key
+		}
+	}
+
+	@Test
+	void testStampede() throws Exception {
+		var cache = new ResponseCache(Duration.ofMinutes(1), 10, 1 << 20);
+		try (var server = server(cache)) {
+			var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+			for (int i = 0; i < 8; i++) responses.add(server.client.sendAsync(server.request("/cached/slow").build(), HttpResponse.BodyHandlers.ofString()));
+			for (var response : responses) assertEquals("slow 1", response.get().body());
+			assertEquals(1, builds.get());
+		}
+	}
+}
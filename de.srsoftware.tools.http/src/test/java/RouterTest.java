@@ -0,0 +1,94 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.Router;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class RouterTest {
+	private Router<String> router() {
+		return new Router<String>()
+			.add("GET", "/users", "list")
+			.add("GET", "/users/{id}", "user")
+			.add("GET", "/users/me", "me")
+			.add("POST", "/users/{id}", "update")
+			.add("GET", "/users/{id}/files/*", "files")
+			.add("GET", "/static/*", "static");
+	}
+
+	@Test
+	void testLiteral() {
+		var match = router().match("GET", "/users");
+		assertEquals("list", match.handler());
+		assertEquals(Map.of(), match.params());
+	}
+
+	@Test
+	void testParam() {
+		var match = router().match("GET", "users/42/");
+		assertEquals("user", match.handler());
+		assertEquals("42", match.param("id"));
+	}
+
+	@Test
+	void testLiteralBeforeParam() {
+		assertEquals("me", router().match("GET", "/users/me").handler());
+	}
+
+	@Test
+	void testMethod() {
+		var router = router();
+		assertEquals("update", router.match("POST", "/users/42").handler());
+		assertNull(router.match("DELETE", "/users/42"));
+	}
+
+	@Test
+	void testWildcard() {
+		var match = router().match("GET", "/users/a%20b/files/docs/readme.txt");
+		assertEquals("files", match.handler());
+		assertEquals("a b", match.param("id"));
+		assertEquals("docs/readme.txt", match.param(Router.WILDCARD));
+		assertEquals("", router().match("GET", "/static").param(Router.WILDCARD));
+	}
+
+	@Test
+	void testEncodedLiteral() {
+		var router = router().add("GET", "/files/a b", "spaced").add("GET", "/files/{name}", "file");
+		assertEquals("spaced", router.match("GET", "/files/a%20b").handler());
+		assertEquals("spaced", router.match("GET", "/files/a+b").handler()); // decoded like Path.pop()
+		assertEquals("me", router.match("GET", "/users/%6De").handler());
+		assertEquals("file", router.match("GET", "/files/a%2").handler()); // malformed escapes only match captures
+		var path = Path.of("/files/a%20b");
+		assertEquals("files", path.pop());
+		assertEquals("a b", path.pop()); // the segment the router compared
+	}
+
+	@Test
+	void testNoMatch() {
+		assertNull(router().match("GET", "/unknown"));
+		assertNull(router().match("GET", "/users/42/other"));
+	}
+
+	@Test
+	void testManyRoutes() {
+		var router = new Router<String>();
+		for (int i = 0; i < 500; i++) router.add("GET", "/api/resource" + i + "/{id}", "r" + i).add("GET", "/api/resource" + i, "list" + i);
+		for (int i = 0; i < 500; i++) {
+			assertEquals("list" + i, router.match("GET", "/api/resource" + i).handler());
+			var match = router.match("GET", "/api/resource" + i + "/x" + i);
+			assertEquals("r" + i, match.handler());
+			assertEquals("x" + i, match.param("id"));
+		}
+		assertNull(router.match("GET", "/api/resource500"));
+	}
+
+	@Test
+	void testSharedMatchWithoutParams() {
+		var router = router();
+		assertSame(router.match("GET", "/users"), router.match("GET", "/users/"));
+		assertNotSame(router.match("GET", "/users/1"), router.match("GET", "/users/1"));
+		assertEquals("1", router.match("GET", "/users/1").param("id"));
+		assertEquals("2", router.match("GET", "/users/2").param("id"));
+	}
+}
@@ -0,0 +1,163 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.SessionStore;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+public class SessionStoreTest {
+	private static class ManualClock extends Clock {
+		private volatile long millis = System.currentTimeMillis();
+
+		void advance(long ms) {
+			millis += ms;
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Instant instant() {
+			return Instant.ofEpochMilli(millis);
+		}
+
+		@Override
+		public long millis() {
+			return millis;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+	}
+
+	private final ManualClock clock = new ManualClock();
+
+	private static void await(BooleanSupplier condition) throws InterruptedException { // the timer wheel runs in real time
+		for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) Thread.sleep(10);
+		assertTrue(condition.getAsBoolean());
+	}
+
+	@Test
+	void testSlidingExpiry() throws InterruptedException {
+		try (var store = new SessionStore<String>(Duration.ofMillis(300), 100, Duration.ofMillis(20), clock)) {
+			var kept    = store.create("kept");
+			var dropped = store.create("dropped");
+			assertEquals(2, store.size());
+			for (int i = 0; i < 5; i++) {
+				clock.advance(100);
+				assertEquals(Optional.of("kept"), store.get(kept));
+			}
+			await(() -> store.size() == 1); // removed by the timer wheel, not by a lookup
+			assertEquals(Optional.empty(), store.get(dropped));
+			clock.advance(500);
+			await(() -> store.size() == 0);
+		}
+	}
+
+	@Test
+	void testExpiryAfterSeveralRounds() throws InterruptedException {
+		try (var store = new SessionStore<String>(Duration.ofSeconds(10), 100, Duration.ofMillis(1), clock)) { // more ticks per ttl than slots
+			var kept    = store.create("kept");
+			var dropped = store.create("dropped");
+			clock.advance(6_000);
+			assertEquals(Optional.of("kept"), store.get(kept));
+			Thread.sleep(50);
+			assertEquals(2, store.size()); // a full rotation passed, but the sessions are due in a later round
+			clock.advance(6_000);
+			await(() -> store.size() == 1);
+			assertEquals(Optional.empty(), store.get(dropped));
+			clock.advance(6_000);
+			await(() -> store.size() == 0);
+		}
+	}
+
+	@Test
+	void testAbsurdRatios() {
+		assertThrows(IllegalArgumentException.class, () -> new SessionStore<String>(Duration.ofSeconds(-1), 10));
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			try (var store = new SessionStore<String>(Duration.ofDays(3650), 10, Duration.ofNanos(1), clock)) {
+				var id = store.create("value");
+				clock.advance(Duration.ofDays(3000).toMillis());
+				assertEquals(Optional.of("value"), store.get(id));
+			}
+		});
+	}
+
+	@Test
+	void testLeastRecentlyUsedEviction() throws InterruptedException {
+		try (var store = new SessionStore<Integer>(Duration.ofMinutes(1), 3, Duration.ofMillis(10), clock)) {
+			store.put("a", 1);
+			clock.advance(30);
+			store.put("b", 2);
+			clock.advance(30);
+			store.put("c", 3);
+			clock.advance(30);
+			store.get("a");
+			store.put("d", 4);
+			await(() -> store.size() == 3); // evicted by the timer thread
+			assertEquals(Optional.empty(), store.get("b"));
+			assertEquals(Optional.of(1), store.get("a"));
+			assertEquals(Optional.of(3), store.get("c"));
+			assertEquals(Optional.of(4), store.get("d"));
+			assertEquals(Optional.of(4), store.invalidate("d"));
+			assertEquals(2, store.size());
+		}
+	}
+
+	@Test
+	void testEvictionAfterClose() {
+		var store = new SessionStore<Integer>(Duration.ofMinutes(1), 2, Duration.ofMillis(10), clock);
+		store.close();
+		assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+			clock.advance(50); // the wheel falls behind, new sessions wrap around to slots that are scanned too early
+			store.put("a", 1);
+			store.put("b", 2);
+			clock.advance(20);
+			store.get("a");
+			store.put("c", 3); // evicted right away, as there is no timer thread
+			assertEquals(2, store.size());
+			assertEquals(Optional.empty(), store.get("b"));
+			assertEquals(Optional.of(1), store.get("a"));
+			assertEquals(Optional.of(3), store.get("c"));
+		});
+	}
+
+	@Test
+	void testSnapshot() throws IOException {
+		var file = File.createTempFile("sessions", ".txt");
+		try {
+			try (var store = new SessionStore<String>(Duration.ofMinutes(1), 10)) {
+				store.put("x", "first\tvalue\n");
+				store.put("y", "second");
+				assertEquals(2, store.snapshot(file, Function.identity()));
+			}
+			if (file.toPath().getFileSystem().supportedFileAttributeViews().contains("posix")) {
+				assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(file.toPath()));
+			}
+			Files.writeString(file.toPath(), "broken\tnot-a-number\tZGF0YQ==\nbroken\t99999999999999\t%%%\n", StandardOpenOption.APPEND);
+			try (var store = new SessionStore<String>(Duration.ofMinutes(1), 10)) {
+				assertEquals(2, store.restore(file, Function.identity()));
+				assertEquals(Optional.of("first\tvalue\n"), store.get("x"));
+				assertEquals(Optional.of("second"), store.get("y"));
+			}
+		} finally {
+			Files.deleteIfExists(file.toPath());
+		}
+	}
+}
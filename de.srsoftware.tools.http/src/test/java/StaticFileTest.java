@@ -0,0 +1,74 @@
+/* © SRSoftware 2025 */
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.StaticFileHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class StaticFileTest {
+	private static final String CONTENT = "0123456789abcdefghij";
+
+	private Path       dir;
+	private TestServer server;
+
+	@BeforeEach
+	void start() throws Exception {
+		dir = Files.createTempDirectory("static");
+		Files.writeString(dir.resolve("test.txt"), CONTENT, UTF_8);
+		server = new TestServer(new StaticFileHandler(dir.toFile()), "/files");
+	}
+
+	@AfterEach
+	void stop() {
+		server.close();
+		for (var file : dir.toFile().listFiles()) file.delete();
+		dir.toFile().delete();
+	}
+
+	@Test
+	void testFullFile() throws Exception {
+		var response = server.get("/files/test.txt");
+		assertEquals(200, response.statusCode());
+		assertEquals(CONTENT, response.body());
+		assertEquals("bytes", response.headers().firstValue("Accept-Ranges").orElse(null));
+		assertTrue(response.headers().firstValue("ETag").isPresent());
+		assertEquals(404, server.get("/files/missing.txt").statusCode());
+	}
+
+	@Test
+	void testRange() throws Exception {
+		var response = server.get("/files/test.txt", "Range", "bytes=2-5");
+		assertEquals(206, response.statusCode());
+		assertEquals("2345", response.body());
+		assertEquals("bytes 2-5/20", response.headers().firstValue("Content-Range").orElse(null));
+
+		response = server.get("/files/test.txt", "Range", "bytes=-3");
+		assertEquals(206, response.statusCode());
+		assertEquals("hij", response.body());
+
+		response = server.get("/files/test.txt", "Range", "bytes=15-");
+		assertEquals("fghij", response.body());
+
+		assertEquals(416, server.get("/files/test.txt", "Range", "bytes=20-").statusCode());
+		assertEquals(200, server.get("/files/test.txt", "Range", "bytes=2-5", "If-Range", "\"stale\"").statusCode());
+	}
+
+	@Test
+	void testConditional() throws Exception {
+		var first = server.get("/files/test.txt");
+		var etag  = first.headers().firstValue("ETag").orElseThrow();
+		var date  = first.headers().firstValue("Last-Modified").orElseThrow();
+		assertEquals(304, server.get("/files/test.txt", "If-None-Match", etag).statusCode());
+		assertEquals(304, server.get("/files/test.txt", "If-Modified-Since", date).statusCode());
+		assertEquals(200, server.get("/files/test.txt", "If-None-Match", "\"other\"").statusCode());
+	}
+
+	@Test
+	void testTraversal() throws Exception {
+		assertEquals(403, server.get("/files/..%2Fsecret.txt").statusCode());
+	}
+}
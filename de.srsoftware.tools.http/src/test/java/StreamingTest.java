@@ -0,0 +1,120 @@
+/* © SRSoftware 2025 */
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.sun.net.httpserver.HttpExchange;
+import de.srsoftware.tools.Path;
+import de.srsoftware.tools.PathHandler;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+public class StreamingTest {
+	private final AtomicBoolean  closed   = new AtomicBoolean(false);
+	private final AtomicBoolean  buffered = new AtomicBoolean(false);
+	private final CountDownLatch received = new CountDownLatch(1);
+
+	private TestServer server() throws IOException {
+		var handler = new PathHandler() {
+			@Override
+			public boolean doGet(Path path, HttpExchange ex) throws IOException {
+				if (path.equals("unicode")) return sendContent(ex, List.of("ä水\uD83D\uDE00"));
+				if (path.equals("large")) return sendContent(ex, largeList());
+				if (path.equals("broken")) return sendContent(ex, Stream.of(Map.of("id", 0), Map.of("id", Double.NaN)));
+				var blocking = path.equals("blocking");
+				var stream   = Stream.iterate(0, i -> i + 1).limit(blocking ? 10 : 3).peek(i -> {
+					if (blocking && i == 1) awaitFirstElement();
+				}).map(i -> Map.of("id", i));
+				return sendContent(ex, stream.onClose(() -> closed.set(true)));
+			}
+		};
+		handler.flushEvery(Duration.ZERO); // flush after every element
+		return new TestServer(handler, "/stream");
+	}
+
+	private Iterable<String> largeList() { // about 100 KiB, the client has to receive the start before the second half is produced
+		var element = "x".repeat(100);
+		return () -> Stream.iterate(0, i -> i + 1).limit(1000).peek(i -> {
+			if (i == 500) awaitFirstElement();
+		}).map(i -> element).iterator();
+	}
+
+	private void awaitFirstElement() { // produces the next element only after the client received the first one
+		try {
+			if (!received.await(5, TimeUnit.SECONDS)) buffered.set(true);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	void testJsonArray() throws Exception {
+		try (var server = server()) {
+			var response = server.get("/stream/list");
+			assertEquals("application/json", response.headers().firstValue("Content-Type").orElse(null));
+			assertEquals("[{\"id\":0},{\"id\":1},{\"id\":2}]", response.body());
+			assertTrue(closed.get());
+		}
+	}
+
+	@Test
+	void testNdJson() throws Exception {
+		try (var server = server()) {
+			var response = server.get("/stream/list", "Accept", "application/x-ndjson");
+			assertEquals("application/x-ndjson", response.headers().firstValue("Content-Type").orElse(null));
+			assertEquals("{\"id\":0}\n{\"id\":1}\n{\"id\":2}\n", response.body());
+		}
+	}
+
+	@Test
+	void testLargeJson() throws Exception {
+		try (var server = server()) {
+			var response = server.client.send(server.request("/stream/large").build(), HttpResponse.BodyHandlers.ofInputStream());
+			try (var in = response.body()) {
+				assertEquals('[', in.read());
+				received.countDown();
+				var length = 1 + in.readAllBytes().length;
+				assertEquals(1000 * 103 + 1, length); // 1000 quoted elements, separated by commas, within brackets
+			}
+			assertTrue(response.headers().firstValue("Content-Length").isEmpty(), "body exceeding the buffer should be sent in chunks");
+			assertFalse(buffered.get(), "start of the body should arrive before the rest is produced");
+		}
+	}
+
+	@Test
+	void testUnicode() throws Exception {
+		try (var server = server()) {
+			assertEquals("[\"ä水\uD83D\uDE00\"]", server.get("/stream/unicode").body());
+		}
+	}
+
+	@Test
+	void testBrokenElement() throws Exception {
+		try (var server = server()) { // the first element has already been sent, so the response must not look complete
+			assertThrows(IOException.class, () -> server.get("/stream/broken", "Accept", "application/x-ndjson"));
+		}
+	}
+
+	@Test
+	void testIncremental() throws Exception {
+		try (var server = server()) {
+			var response = server.client.send(server.request("/stream/blocking", "Accept", "application/x-ndjson").build(), HttpResponse.BodyHandlers.ofLines());
+			var lines    = response.body().iterator();
+			assertEquals("{\"id\":0}", lines.next());
+			received.countDown();
+			var count = 1;
+			while (lines.hasNext()) {
+				lines.next();
+				count++;
+			}
+			assertEquals(10, count);
+			assertFalse(buffered.get(), "first element should arrive before the rest of the stream is produced");
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/* © SRSoftware 2025 */
+import com.sun.net.httpserver.HttpServer;
+import de.srsoftware.tools.PathHandler;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.Executor;
+
+/**
+ * runs a PathHandler on a local port for the duration of a test
+ */
+class TestServer implements AutoCloseable {
+	final HttpServer server;
+	final HttpClient client = HttpClient.newHttpClient();
+
+	TestServer(PathHandler handler, String path) throws IOException {
+		this(handler, path, null);
+	}
+
+	TestServer(PathHandler handler, String path, Executor executor) throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		var bond = handler.bindPath(path);
+		if (executor == null) {
+			bond.on(server);
+		} else bond.on(server, executor);
+		server.start();
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+	}
+
+	/**
+	 * send a GET request and return the body as string
+	 */
+	HttpResponse<String> get(String path, String... headers) throws IOException, InterruptedException {
+		return client.send(request(path, headers).build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	/**
+	 * send a GET request and return the raw body
+	 */
+	HttpResponse<byte[]> getBytes(String path, String... headers) throws IOException, InterruptedException {
+		return client.send(request(path, headers).build(), HttpResponse.BodyHandlers.ofByteArray());
+	}
+
+	HttpRequest.Builder request(String path, String... headers) {
+		var builder = HttpRequest.newBuilder(uri(path));
+		if (headers.length > 0) builder.headers(headers);
+		return builder;
+	}
+
+	URI uri(String path) {
+		return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+	}
+}
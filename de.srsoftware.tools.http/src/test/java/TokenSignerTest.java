@@ -0,0 +1,82 @@
+/* © SRSoftware 2025 */
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.srsoftware.tools.TokenSigner;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+public class TokenSignerTest {
+	private static final byte[] OLD = "old secret key with enough bytes".getBytes(UTF_8);
+	private static final byte[] NEW = "new secret key with enough bytes".getBytes(UTF_8);
+
+	@Test
+	void testSignAndVerify() {
+		var signer = new TokenSigner("k1", OLD);
+		var token  = signer.sign("user:42 Ä", Instant.now().plusSeconds(60)).sessionId();
+		assertEquals(Optional.of("user:42 Ä"), signer.verify(token));
+		assertTrue(token.matches("[A-Za-z0-9_.-]+"), token);
+
+		var parts = token.split("\\.");
+		assertEquals(Optional.empty(), signer.verify(token.substring(1)));
+		assertEquals(Optional.empty(), signer.verify(parts[0] + "." + (Long.parseLong(parts[1]) + 1) + "." + parts[2] + "." + parts[3]));
+		assertEquals(Optional.empty(), signer.verify(parts[0] + "." + parts[1] + "." + parts[2] + "." + parts[3].substring(1)));
+		assertEquals(Optional.empty(), signer.verify(token.replace('k', 'ķ')));
+		assertEquals(Optional.empty(), signer.verify("garbage"));
+		assertEquals(Optional.empty(), signer.verify("a.b.c.d"));
+		assertEquals(Optional.empty(), new TokenSigner("k1", NEW).verify(token));
+	}
+
+	@Test
+	void testConcurrentUse() throws Exception {
+		var signer  = new TokenSigner("k1", OLD);
+		var results = new ArrayList<Future<Optional<String>>>();
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < 1000; i++) {
+				var payload = "user:" + i;
+				results.add(executor.submit(() -> signer.verify(signer.sign(payload, Instant.now().plusSeconds(60)).sessionId())));
+			}
+		}
+		for (int i = 0; i < results.size(); i++) assertEquals(Optional.of("user:" + i), results.get(i).get());
+		assertEquals(Optional.empty(), signer.verify(signer.sign("user", Instant.now().plusSeconds(60)).sessionId().replace('k', 'ķ'))); // a failed signature does not spoil the pooled mac
+		assertEquals(Optional.of("user"), signer.verify(signer.sign("user", Instant.now().plusSeconds(60)).sessionId()));
+	}
+
+	@Test
+	void testExpiry() {
+		var signer = new TokenSigner("k1", OLD);
+		assertEquals(Optional.empty(), signer.verify(signer.sign("user", Instant.now().minusSeconds(1)).sessionId()));
+	}
+
+	@Test
+	void testRotation() {
+		var signer = new TokenSigner("k1", OLD);
+		var before = signer.sign("before", Instant.now().plusSeconds(60)).sessionId();
+		signer.rotate("k2", NEW);
+		var after = signer.sign("after", Instant.now().plusSeconds(60)).sessionId();
+		assertEquals(Optional.of("before"), signer.verify(before));
+		assertEquals(Optional.of("after"), signer.verify(after));
+
+		var other = new TokenSigner("k2", NEW);
+		assertEquals(Optional.of("after"), other.verify(after));
+		assertEquals(Optional.empty(), other.verify(before));
+		assertEquals(Optional.of("before"), other.accept("k1", OLD).verify(before));
+
+		signer.retire("k1");
+		assertEquals(Optional.empty(), signer.verify(before));
+		assertThrows(IllegalArgumentException.class, () -> signer.retire("k2"));
+		assertThrows(IllegalArgumentException.class, () -> signer.rotate("k.3", NEW));
+		assertThrows(IllegalArgumentException.class, () -> signer.accept("k.3", NEW));
+	}
+
+	@Test
+	void testAcceptCurrentKey() {
+		var signer = new TokenSigner("k1", OLD);
+		assertThrows(IllegalArgumentException.class, () -> signer.accept("k1", NEW));
+		assertEquals(Optional.of("user"), signer.verify(signer.sign("user", Instant.now().plusSeconds(60)).sessionId()));
+	}
+}
@@ -1,19 +1,38 @@
 /* © SRSoftware 2025 */
 package de.srsoftware.tools.jdbc;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * This class wraps an SQL condition usable with WHERE
+ * This class wraps an SQL condition usable with WHERE.
+ * Conditions are either relative to a field, e.g. " = ?", or complete, e.g. "(year = ? OR title LIKE ?)".
+ * Complete conditions are created by {@link #field(String, Condition)} and can be combined with and(…), or(…) and not(…).
  */
 public class Condition {
 	private final List<Object> values;
 	private final String       sql;
+	private final boolean      complete;
 
 	private Condition(String sql, Object... values) {
-		this.sql    = sql;
-		this.values = List.of(values);
+		this(sql, false, List.of(values));
+	}
+
+	private Condition(String sql, boolean complete, List<Object> values) {
+		this.sql      = sql;
+		this.complete = complete;
+		this.values   = values;
+	}
+
+	/**
+	 * combine complete conditions, all of which have to be fulfilled
+	 * @param conditions the conditions to combine
+	 * @return the built condition
+	 */
+	public static Condition and(Condition... conditions) {
+		return join(" AND ", conditions);
 	}
 
 	/**
@@ -26,6 +45,17 @@ public class Condition {
 		return new Condition(" = ?", value);
 	}
 
+	/**
+	 * bind a condition to a field, so it can be combined with other conditions
+	 * @param field the field in which the condition is to be fulfilled
+	 * @param condition the condition to be fulfilled
+	 * @return the complete condition
+	 */
+	public static Condition field(String field, Condition condition) {
+		if (condition.complete) throw new IllegalArgumentException("Condition \"%s\" is already bound to a field!".formatted(condition.sql));
+		return new Condition(field + condition.sql, true, condition.values);
+	}
+
 	/**
 	 * create a …= x… condition (case insensitive)
 	 * @param value the value to compare against
@@ -56,6 +86,26 @@ public class Condition {
 		return new Condition(" IS NULL");
 	}
 
+	/**
+	 * check, whether this condition is bound to a field
+	 * @return true for conditions created by field(…), and(…), or(…) and not(…)
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	private static Condition join(String operator, Condition[] conditions) {
+		if (conditions.length == 0) throw new IllegalArgumentException("Combining conditions requires at least one condition!");
+		var parts  = new ArrayList<String>();
+		var values = new ArrayList<>();
+		for (var condition : conditions) {
+			if (!condition.complete) throw new IllegalArgumentException("Condition \"%s\" needs to be bound to a field before combining it!".formatted(condition.sql));
+			parts.add(condition.sql);
+			values.addAll(condition.values);
+		}
+		return new Condition("(" + String.join(operator, parts) + ")", true, Collections.unmodifiableList(values));
+	}
+
 	/**
 	 * create a …&lt; x… condition
 	 * @param value the value to compare against
@@ -74,6 +124,16 @@ public class Condition {
 		return new Condition(" > ?", value);
 	}
 
+	/**
+	 * negate a complete condition
+	 * @param condition the condition to negate
+	 * @return the built condition
+	 */
+	public static Condition not(Condition condition) {
+		if (!condition.complete) throw new IllegalArgumentException("Condition \"%s\" needs to be bound to a field before negating it!".formatted(condition.sql));
+		return new Condition("NOT (" + condition.sql + ")", true, condition.values);
+	}
+
 	/**
 	 * create a …NOT IN (...)… condition
 	 * @param values the values that shall be avoided
@@ -84,6 +144,15 @@ public class Condition {
 		return new Condition(" NOT IN (%s)".formatted(String.join(", ", marks)), values);
 	}
 
+	/**
+	 * combine complete conditions, at least one of which has to be fulfilled
+	 * @param conditions the conditions to combine
+	 * @return the built condition
+	 */
+	public static Condition or(Condition... conditions) {
+		return join(" OR ", conditions);
+	}
+
 	/**
 	 * create a …LIKE… condition
 	 * @param txt the text to compare against
@@ -0,0 +1,55 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+/**
+ * provides connections to a database, either a single shared connection or a pool
+ */
+public interface ConnectionSource {
+	/**
+	 * get a connection
+	 * @return a connection to the database
+	 * @throws SQLException if no connection can be obtained
+	 */
+	Connection acquire() throws SQLException;
+
+	/**
+	 * hand back a connection obtained by acquire()
+	 * @param conn the connection that is no longer used
+	 * @throws SQLException if releasing the connection fails
+	 */
+	default void release(Connection conn) throws SQLException {
+		// shared connections are kept open
+	}
+
+	/**
+	 * create a source that always provides the same connection
+	 * @param conn the shared connection
+	 * @return the connection source
+	 */
+	static ConnectionSource of(Connection conn) {
+		return () -> conn;
+	}
+
+	/**
+	 * create a source that borrows connections from a pool and returns them by closing them
+	 * @param pool the data source
+	 * @return the connection source
+	 */
+	static ConnectionSource of(DataSource pool) {
+		return new ConnectionSource() {
+			@Override
+			public Connection acquire() throws SQLException {
+				return pool.getConnection();
+			}
+
+			@Override
+			public void release(Connection conn) throws SQLException {
+				conn.close();
+			}
+		};
+	}
+}
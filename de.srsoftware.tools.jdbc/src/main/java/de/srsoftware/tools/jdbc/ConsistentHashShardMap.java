@@ -0,0 +1,85 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * A shard map based on a consistent hash ring: adding or removing a shard only moves the keys of the neighbouring ring segments.
+ * @param <K> the type of the shard keys
+ */
+public class ConsistentHashShardMap<K> implements ShardMap<K> {
+	/** number of ring positions per shard, if not specified otherwise **/ public static final int DEFAULT_REPLICAS = 128;
+
+	private final    int                   replicas;
+	private volatile TreeMap<Long, String> ring = new TreeMap<>();
+
+	/**
+	 * create a hash ring for the given shards
+	 * @param shards the names of the shards
+	 */
+	public ConsistentHashShardMap(String... shards) {
+		this(DEFAULT_REPLICAS, List.of(shards));
+	}
+
+	/**
+	 * create a hash ring for the given shards
+	 * @param replicas the number of ring positions per shard
+	 * @param shards the names of the shards
+	 */
+	public ConsistentHashShardMap(int replicas, Collection<String> shards) {
+		this.replicas = replicas;
+		for (var shard : shards) place(ring, shard);
+	}
+
+	/**
+	 * add a shard to the ring
+	 * @param shard the name of the shard
+	 * @return this map
+	 */
+	public synchronized ConsistentHashShardMap<K> add(String shard) {
+		var copy = new TreeMap<>(ring);
+		place(copy, shard);
+		ring = copy;
+		return this;
+	}
+
+	private static long hash(String s) {
+		// FNV-1a, followed by a splitmix finalizer to spread the bits
+		long h = 0xcbf29ce484222325L;
+		for (byte b : s.getBytes(UTF_8)) {
+			h ^= b;
+			h *= 0x100000001b3L;
+		}
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	private void place(TreeMap<Long, String> target, String shard) {
+		for (int i = 0; i < replicas; i++) target.put(hash(shard + "#" + i), shard);
+	}
+
+	/**
+	 * remove a shard from the ring
+	 * @param shard the name of the shard
+	 * @return this map
+	 */
+	public synchronized ConsistentHashShardMap<K> remove(String shard) {
+		var copy = new TreeMap<>(ring);
+		for (int i = 0; i < replicas; i++) copy.remove(hash(shard + "#" + i), shard);
+		ring = copy;
+		return this;
+	}
+
+	@Override
+	public String shardOf(K key) {
+		var current = ring; // the ring is replaced on modification, so lookups need no lock
+		if (current.isEmpty()) throw new IllegalStateException("No shards defined!");
+		var entry = current.ceilingEntry(hash(String.valueOf(key)));
+		return (entry == null ? current.firstEntry() : entry).getValue();
+	}
+}
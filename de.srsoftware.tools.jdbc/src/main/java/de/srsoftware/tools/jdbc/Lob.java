@@ -0,0 +1,68 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * helper methods to access large column values (BLOB/CLOB) without materializing them in memory
+ */
+public class Lob {
+	private static final int BUFFER_SIZE = 8192;
+
+	private Lob() {
+		// discourage instantiation
+	}
+
+	/**
+	 * open a stream on a binary column of the current row
+	 * @param rs the result set, positioned on the row to read
+	 * @param column the name of the column to read
+	 * @return a stream delivering the column content, or null if the column value is NULL
+	 * @throws SQLException if the column cannot be accessed
+	 */
+	public static InputStream binaryStream(ResultSet rs, String column) throws SQLException {
+		return rs.getBinaryStream(column);
+	}
+
+	/**
+	 * open a reader on a character column of the current row
+	 * @param rs the result set, positioned on the row to read
+	 * @param column the name of the column to read
+	 * @return a reader delivering the column content, or null if the column value is NULL
+	 * @throws SQLException if the column cannot be accessed
+	 */
+	public static Reader characterStream(ResultSet rs, String column) throws SQLException {
+		return rs.getCharacterStream(column);
+	}
+
+	/**
+	 * copy the content of a binary column of the current row to a channel, using a fixed-size buffer
+	 * @param rs the result set, positioned on the row to read
+	 * @param column the name of the column to read
+	 * @param target the channel to write to
+	 * @return the number of bytes transferred
+	 * @throws SQLException if the column cannot be accessed
+	 * @throws IOException if reading the column or writing to the channel fails
+	 */
+	public static long transfer(ResultSet rs, String column, WritableByteChannel target) throws SQLException, IOException {
+		var in = rs.getBinaryStream(column);
+		if (in == null) return 0;
+		long total = 0;
+		try (var source = Channels.newChannel(in)) {
+			var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			while (source.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) total += target.write(buffer);
+				buffer.clear();
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,225 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static de.srsoftware.tools.jdbc.Query.SelectQuery.ALL;
+import static java.lang.System.Logger.Level.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A fully replicated, in-memory copy of a small table.
+ * Lookups are served from an immutable snapshot, writes are passed through to the database and trigger a reload.
+ * @param <T> the type of the objects created from the table rows
+ */
+public class NearCache<T> {
+	private static final System.Logger LOG = System.getLogger(NearCache.class.getSimpleName());
+
+	private final String                       table;
+	private final RowMapper<T>                 mapper;
+	private final Function<T, ?>               primaryKey;
+	private final Map<String, Function<T, ?>>  indexKeys     = new LinkedHashMap<>();
+	private final AtomicLong                   loads         = new AtomicLong(); // numbers the loads in the order they start
+	private final AtomicReference<Snapshot<T>> snapshot      = new AtomicReference<>(new Snapshot<>(Map.of(), Map.of(), null, 0));
+	private String                             versionColumn = null;
+
+	private record Snapshot<T>(Map<Object, T> primary, Map<String, Map<Object, List<T>>> indices, Object version, long sequence) {
+	}
+
+	/**
+	 * create a new cache for a table. The cache is empty until {@link #load(Connection)} is called.
+	 * @param table the name of the table to replicate
+	 * @param mapper converts table rows to objects
+	 * @param primaryKey extracts the primary key from an object
+	 */
+	public NearCache(String table, RowMapper<T> mapper, Function<T, ?> primaryKey) {
+		this.table      = table;
+		this.mapper     = mapper;
+		this.primaryKey = primaryKey;
+	}
+
+	/**
+	 * list all cached objects
+	 * @return an unmodifiable collection of the cached objects
+	 */
+	public Collection<T> all() {
+		return snapshot.get().primary().values();
+	}
+
+	/**
+	 * pass a delete query through to the database, then reload the cache
+	 * @param conn the connection to act on
+	 * @param query the query to execute
+	 * @return the result of the execution
+	 * @throws SQLException if executing the query or reloading fails
+	 */
+	public boolean delete(Connection conn, Query.DeleteQuery query) throws SQLException {
+		var result = query.execute(conn);
+		load(conn);
+		return result;
+	}
+
+	/**
+	 * look up all objects, whose secondary key matches the value
+	 * @param index the name of the secondary index
+	 * @param value the value of the secondary key
+	 * @return the list of matching objects, may be empty
+	 */
+	public List<T> find(String index, Object value) {
+		var map = snapshot.get().indices().get(index);
+		if (map == null) throw new IllegalArgumentException("No index \"%s\" defined for %s!".formatted(index, table));
+		return map.getOrDefault(value, List.of());
+	}
+
+	/**
+	 * look up an object by its primary key
+	 * @param key the primary key
+	 * @return an optional containing the object, or empty if there is no object for the key
+	 */
+	public Optional<T> get(Object key) {
+		return Optional.ofNullable(snapshot.get().primary().get(key));
+	}
+
+	/**
+	 * add a secondary index. Must be called before {@link #load(Connection)}
+	 * @param name the name of the index
+	 * @param key extracts the secondary key from an object
+	 * @return this cache
+	 */
+	public NearCache<T> index(String name, Function<T, ?> key) {
+		indexKeys.put(name, key);
+		return this;
+	}
+
+	/**
+	 * pass an insert query through to the database, then reload the cache
+	 * @param conn the connection to act on
+	 * @param query the query to execute
+	 * @return the prepared statement that was executed
+	 * @throws SQLException if executing the query or reloading fails
+	 */
+	public PreparedStatement insert(Connection conn, Query.InsertQuery query) throws SQLException {
+		var stmt = query.execute(conn);
+		load(conn);
+		return stmt;
+	}
+
+	/**
+	 * (re)load the full table into memory. Rows mapped to null are skipped.
+	 * If loads overlap, the snapshot of the load started last is kept, no matter which one finishes last.
+	 * @param conn the connection to read from
+	 * @return this cache
+	 * @throws SQLException if reading the table fails
+	 */
+	public NearCache<T> load(Connection conn) throws SQLException {
+		var sequence = loads.incrementAndGet();
+		var version  = version(conn);
+		var primary  = new HashMap<Object, T>();
+		var indices  = new HashMap<String, Map<Object, List<T>>>();
+		for (var name : indexKeys.keySet()) indices.put(name, new HashMap<>());
+		for (var obj : Query.select(ALL).from(table).list(conn, mapper)) {
+			if (obj == null) continue;
+			primary.put(primaryKey.apply(obj), obj);
+			for (var entry : indexKeys.entrySet()) indices.get(entry.getKey()).computeIfAbsent(entry.getValue().apply(obj), k -> new ArrayList<>()).add(obj);
+		}
+		var frozen = new HashMap<String, Map<Object, List<T>>>();
+		for (var entry : indices.entrySet()) {
+			var index = new HashMap<Object, List<T>>();
+			entry.getValue().forEach((key, list) -> index.put(key, List.copyOf(list)));
+			frozen.put(entry.getKey(), Collections.unmodifiableMap(index));
+		}
+		var loaded = new Snapshot<>(Collections.unmodifiableMap(primary), Map.copyOf(frozen), version, sequence);
+		if (snapshot.accumulateAndGet(loaded, (current, next) -> next.sequence() > current.sequence() ? next : current) == loaded) {
+			LOG.log(DEBUG, "Loaded {0} rows of {1}", primary.size(), table);
+		} else LOG.log(DEBUG, "Discarded outdated snapshot of {0}", table);
+		return this;
+	}
+
+	/**
+	 * reload the table, if the content of the version column changed since the last load. Without a version column, the table is always reloaded.
+	 * @param conn the connection to read from
+	 * @return true, if the table was reloaded
+	 * @throws SQLException if reading the table fails
+	 */
+	public boolean refresh(Connection conn) throws SQLException {
+		if (versionColumn != null && Objects.equals(version(conn), snapshot.get().version())) return false;
+		load(conn);
+		return true;
+	}
+
+	/**
+	 * periodically refresh the cache. Every refresh acquires its own connection from the source and releases it afterwards.
+	 * Refreshes run on a thread of the scheduler, so the source should be a pool – a {@link ConnectionSource#of(Connection) shared connection} must not be used by other threads at the same time.
+	 * @param source provides the connections to read from
+	 * @param scheduler the executor used to run the refresh
+	 * @param interval the time between two refreshes
+	 * @return the scheduled task, which may be cancelled
+	 */
+	public ScheduledFuture<?> schedule(ConnectionSource source, ScheduledExecutorService scheduler, Duration interval) {
+		var millis = interval.toMillis();
+		return scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				var conn = source.acquire();
+				try {
+					refresh(conn);
+				} finally {
+					source.release(conn);
+				}
+			} catch (SQLException | RuntimeException e) { // an uncaught exception would cancel all further refreshes
+				LOG.log(WARNING, "Failed to refresh cache of " + table, e);
+			}
+		}, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * the number of cached objects
+	 * @return the number of cached objects
+	 */
+	public int size() {
+		return snapshot.get().primary().size();
+	}
+
+	/**
+	 * execute a prepared update query, then reload the cache
+	 * @param conn the connection to read from after the update
+	 * @param query the prepared update
+	 * @param values the values passed to {@link Query.PreparedUpdateQuery#apply(Object...)}
+	 * @return the prepared statement that was executed
+	 * @throws SQLException if executing the query or reloading fails
+	 */
+	public PreparedStatement update(Connection conn, Query.PreparedUpdateQuery query, Object... values) throws SQLException {
+		var stmt = query.apply(values);
+		load(conn);
+		return stmt;
+	}
+
+	private Object version(Connection conn) throws SQLException {
+		if (versionColumn == null) return null;
+		var rs = Query.select("MAX(" + versionColumn + ")").from(table).exec(conn);
+		try {
+			return rs.next() ? rs.getObject(1) : null;
+		} finally {
+			rs.getStatement().close();
+		}
+	}
+
+	/**
+	 * set a version or timestamp column. On refresh, the table is only reloaded, if the maximum value of this column changed.
+	 * Note, that rows deleted by other applications are only detected, if they also alter the maximum of this column.
+	 * @param column the name of the column
+	 * @return this cache
+	 */
+	public NearCache<T> versionColumn(String column) {
+		versionColumn = column;
+		return this;
+	}
+}
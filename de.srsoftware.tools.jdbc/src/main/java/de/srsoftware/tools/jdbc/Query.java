@@ -4,9 +4,15 @@ package de.srsoftware.tools.jdbc;
 
 import static java.lang.System.Logger.Level.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
 import java.security.InvalidParameterException;
 import java.sql.*;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -15,6 +21,7 @@ import java.util.stream.Collectors;
  */
 public class Query {
 	private static final System.Logger LOG = System.getLogger(Query.class.getSimpleName());
+	private static volatile Duration defaultTimeout = null;
 
 	/**
 	 * discriminates different SQL dialects
@@ -35,7 +42,9 @@ public class Query {
 	 */
 	public static class DeleteQuery {
 		private String table;
-		private final Map<String, List<Condition>> conditions = new HashMap<>();
+		private final Map<String, List<Condition>> conditions = new LinkedHashMap<>();
+		private final List<Condition> clauses = new ArrayList<>();
+		private Duration timeout = null;
 
 		private DeleteQuery() {
 		}
@@ -61,6 +70,17 @@ public class Query {
 			return this;
 		}
 
+		/**
+		 * add a complete where condition, as created by Condition.field(…), and(…), or(…) and not(…)
+		 * @param condition the condition to be fulfilled
+		 * @return the updated query object
+		 * @throws IllegalArgumentException if the condition is not bound to a field
+		 */
+		public DeleteQuery where(Condition condition) {
+			clauses.add(complete(condition));
+			return this;
+		}
+
 		/**
 		 * run this query on the provided database connection
 		 *
@@ -70,25 +90,37 @@ public class Query {
 		 */
 		public boolean execute(Connection conn) throws SQLException {
 			var values = new ArrayList<>();
-			var sql    = new StringBuilder();
-			sql.append("DELETE FROM ");
-			sql.append(table);
-			List<String> where = new ArrayList<>();
-			for (var field : conditions.keySet()) {
-				for (Condition sub : conditions.get(field)) {
-					where.add(field + sub.sql());
-					values.addAll(sub.values());
+			try (var stmt = conn.prepareStatement(sql(values), Statement.RETURN_GENERATED_KEYS)) {
+				for (int i = 0; i < values.size(); i++) bind(stmt, i + 1, values.get(i));
+				var guard = StatementGuard.guard(stmt, effectiveTimeout(timeout));
+				try {
+					return stmt.execute();
+				} finally {
+					guard.close();
 				}
 			}
-			if (!where.isEmpty()) {
-				sql.append(" WHERE ");
-				sql.append(String.join(" AND ", where));
-			}
-			var stmt = conn.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
-			for (int i = 0; i < values.size(); i++) stmt.setObject(i + 1, values.get(i));
-			var res = stmt.execute();
-			stmt.close();
-			return res;
+		}
+
+		private String sql(List<Object> values) {
+			var sql = new StringBuilder("DELETE FROM ").append(table);
+			appendWhere(sql, conditions, clauses, values);
+			return sql.toString();
+		}
+
+		/**
+		 * limit the execution time of this query. If the limit is exceeded, or the calling thread is interrupted, the statement is cancelled.
+		 * @param timeout the maximum execution time, null to fall back to the default timeout
+		 * @return this DeleteQuery instance
+		 */
+		public DeleteQuery timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
+		@Override
+		public String toString() {
+			var values = new ArrayList<>();
+			return fill(sql(values), values);
 		}
 	}
 
@@ -101,6 +133,7 @@ public class Query {
 		private String[]       fields	 = null;
 		private final List<Object[]> valueSets = new ArrayList<>();
 		private Dialect ignoreDuplicates = null;
+		private Duration timeout = null;
 
 		private InsertQuery(String table) {
 			this(table,false);
@@ -121,6 +154,7 @@ public class Query {
 		public PreparedStatement execute(Connection conn) throws SQLException {
 			var stmt = conn.prepareStatement(sql(), Statement.RETURN_GENERATED_KEYS);
 			var isAutoCommit = conn.getAutoCommit(); // disable and re-enable only if it is disabled before
+			var guard = StatementGuard.guard(stmt, effectiveTimeout(timeout));
 			try {
 				if (isAutoCommit) conn.setAutoCommit(false);
 				for (var arr : valueSets) {
@@ -131,13 +165,15 @@ public class Query {
 						LOG.log(DEBUG, instance);
 					}
 
-					for (int i = 0; i < arr.length; i++) stmt.setObject(i + 1, arr[i]);
+					for (int i = 0; i < arr.length; i++) bind(stmt, i + 1, arr[i]);
 					stmt.execute();
 				}
 			} catch (SQLException e){
-				conn.rollback();
+				if (!conn.getAutoCommit()) conn.rollback(); // disabling auto-commit may have failed
 				if (isAutoCommit) conn.setAutoCommit(true);
 				throw e;
+			} finally {
+				guard.close();
 			}
 			if (isAutoCommit) conn.setAutoCommit(true);
 			valueSets.clear();
@@ -179,6 +215,16 @@ public class Query {
 		}
 
 
+		/**
+		 * limit the execution time of this query. If the limit is exceeded, or the calling thread is interrupted, the statement is cancelled.
+		 * @param timeout the maximum execution time, null to fall back to the default timeout
+		 * @return this InsertQuery object
+		 */
+		public InsertQuery timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
 		@Override
 		public String toString() {
 			return sql();
@@ -186,6 +232,7 @@ public class Query {
 
 		/**
 		 * add a set of values to the query.
+		 * InputStream and Reader values are streamed into the respective (BLOB/CLOB) column.
 		 * @param values the values to insert. must be in the same number and order as the fields provided when creating the query.
 		 * @return the query
 		 */
@@ -206,9 +253,16 @@ public class Query {
 		private final StringBuilder	tables = new StringBuilder();
 		private String lastTable;
 		private Long limit;
-		private final Map<String, List<Condition>> conditions = new HashMap<>();
+		private final Map<String, List<Condition>> conditions = new LinkedHashMap<>();
+		private final List<Condition> clauses = new ArrayList<>();
 		private Long skip;
 		private final List<String> groupFields = new ArrayList<>();
+		private Duration timeout = null;
+
+		@FunctionalInterface
+		private interface ResultReader<T> {
+			T read(ResultSet rs) throws SQLException;
+		}
 
 		/**
 		 * the fields to select
@@ -219,31 +273,45 @@ public class Query {
 		}
 
 		private String compile(List<Object> values) {
-			var sb = new StringBuilder("SELECT ")  //
-			             .append(String.join(", ", Arrays.asList(fields)))
-			             .append(" ")
-			             .append(tables);
-
-			List<String> where = new ArrayList<>();
-			for (var field : conditions.keySet()) {
-				for (Condition sub : conditions.get(field)) {
-					where.add(field + sub.sql());
-					values.addAll(sub.values());
-				}
-			}
-			if (!where.isEmpty()) {
-				sb.append(" WHERE ");
-				sb.append(String.join(" AND ", where));
-			}
+			return compile("SELECT " + String.join(", ", Arrays.asList(fields)), true, limit, values);
+		}
+
+		private String compile(String select, boolean sorted, Long limit, List<Object> values) {
+			var sb = new StringBuilder(select).append(" ").append(tables);
+			appendWhere(sb, conditions, clauses, values);
 			if (!groupFields.isEmpty()) sb.append(" GROUP BY ").append(String.join(", ", groupFields));
-			if (!sort.isEmpty()) sb.append(" ORDER BY ").append(String.join(", ", sort));
+			if (sorted && !sort.isEmpty()) sb.append(" ORDER BY ").append(String.join(", ", sort));
 			if (limit != null) sb.append(" LIMIT ").append(limit);
 			if (skip != null) sb.append(" OFFSET ").append(skip);
 			return sb.toString();
 		}
 
 		/**
-		 * execute this query
+		 * count the rows this query would return, without transferring them
+		 * @param conn the database connection to act on
+		 * @return the number of rows
+		 * @throws SQLException if the request fails
+		 */
+		public long count(Connection conn) throws SQLException {
+			var values = new ArrayList<>();
+			return read(conn, countSql(values), values, rs -> rs.next() ? rs.getLong(1) : 0);
+		}
+
+		/**
+		 * create the sql for count(…): ORDER BY is dropped, grouped, distinct or limited queries are wrapped in a sub-query
+		 * @param values collects the values for the placeholders
+		 * @return the sql string
+		 */
+		String countSql(List<Object> values) {
+			var distinct = Arrays.stream(fields).anyMatch(field -> field.trim().toUpperCase().startsWith("DISTINCT"));
+			if (groupFields.isEmpty() && limit == null && skip == null && !distinct) return compile("SELECT COUNT(*)", false, null, values);
+			return "SELECT COUNT(*) FROM (" + compile("SELECT " + String.join(", ", Arrays.asList(fields)), false, limit, values) + ") AS counted";
+		}
+
+		/**
+		 * execute this query.
+		 * The timeout and cancellation on interrupt only cover the execution, not the iteration of the returned result set –
+		 * use {@link #list(Connection, RowMapper)} to have the rows fetched under the same guard.
 		 * @param conn the database connection to act on
 		 * @return the resultset of this execution
 		 * @throws SQLException if the request fails
@@ -252,18 +320,78 @@ public class Query {
 			var values = new ArrayList<>();
 			var sql    = compile(values);
 			LOG.log(DEBUG, this::toString);
-			var stmt   = conn.prepareStatement(sql);
-			for (int i = 0; i < values.size(); i++) stmt.setObject(i + 1, values.get(i));
-			return stmt.executeQuery();
+			var stmt  = prepare(conn, sql, values);
+			var guard = StatementGuard.guard(stmt, effectiveTimeout(timeout));
+			try {
+				return stmt.executeQuery();
+			} finally {
+				guard.close();
+			}
+		}
+
+		private PreparedStatement prepare(Connection conn, String sql, List<Object> values) throws SQLException {
+			var stmt = conn.prepareStatement(sql);
+			try {
+				for (int i = 0; i < values.size(); i++) bind(stmt, i + 1, values.get(i));
+				return stmt;
+			} catch (SQLException | RuntimeException e) {
+				stmt.close(); // binding failed, e.g. reading a stream parameter
+				throw e;
+			}
 		}
 
-		private String fill(String sql, ArrayList<Object> values) {
-			while (!values.isEmpty()) {
-				var    o = values.removeFirst();
-				String s = (o instanceof Number num) ? "" + num : "\"" + o + "\"";
-				sql      = sql.replaceFirst("\\?", s);
+		/**
+		 * execute the sql and consume the result, while the statement is still guarded
+		 */
+		private <T> T read(Connection conn, String sql, List<Object> values, ResultReader<T> reader) throws SQLException {
+			try (var stmt = prepare(conn, sql, values)) {
+				var guard = StatementGuard.guard(stmt, effectiveTimeout(timeout));
+				try {
+					return reader.read(stmt.executeQuery());
+				} finally {
+					guard.close();
+				}
 			}
-			return sql;
+		}
+
+		/**
+		 * check, whether this query would return at least one row, without transferring the rows
+		 * @param conn the database connection to act on
+		 * @return true, if there is at least one matching row
+		 * @throws SQLException if the request fails
+		 */
+		public boolean exists(Connection conn) throws SQLException {
+			if (limit != null && limit < 1) return false;
+			var values = new ArrayList<>();
+			return read(conn, existsSql(values), values, ResultSet::next);
+		}
+
+		/**
+		 * create the sql for exists(…): selects a constant, drops ORDER BY and limits the result to one row
+		 * @param values collects the values for the placeholders
+		 * @return the sql string
+		 */
+		String existsSql(List<Object> values) {
+			return compile("SELECT 1", false, 1L, values);
+		}
+
+		/**
+		 * execute this query and convert all rows of the result
+		 * @param conn the database connection to act on
+		 * @param mapper converts the rows to objects
+		 * @return the list of converted rows
+		 * @param <T> the type of the created objects
+		 * @throws SQLException if the request fails
+		 */
+		public <T> List<T> list(Connection conn, RowMapper<T> mapper) throws SQLException {
+			var values = new ArrayList<>();
+			var sql    = compile(values);
+			LOG.log(DEBUG, this::toString);
+			return read(conn, sql, values, rs -> {
+				var list = new ArrayList<T>();
+				while (rs.next()) list.add(mapper.map(rs));
+				return list;
+			});
 		}
 
 		/**
@@ -343,6 +471,16 @@ public class Query {
 		}
 
 
+		/**
+		 * limit the execution time of this query. If the limit is exceeded, or the calling thread is interrupted, the statement is cancelled.
+		 * @param timeout the maximum execution time, null to fall back to the default timeout
+		 * @return this query
+		 */
+		public SelectQuery timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
 		@Override
 		public String toString() {
 			var values = new ArrayList<>();
@@ -359,21 +497,37 @@ public class Query {
 			conditions.computeIfAbsent(field, k -> new ArrayList<>()).add(condition);
 			return this;
 		}
+
+		/**
+		 * add a complete where condition, as created by Condition.field(…), and(…), or(…) and not(…)
+		 * @param condition the condition to be fulfilled
+		 * @return the updated query object
+		 * @throws IllegalArgumentException if the condition is not bound to a field
+		 */
+		public SelectQuery where(Condition condition) {
+			clauses.add(complete(condition));
+			return this;
+		}
 	}
 
 	/**
 	 * Wrapper for prepared statement with metadata to extract data from input values passed by apply
 	 */
 	public static class PreparedUpdateQuery {
+		/** the default upper bound of the delay between two attempts of {@link #applyOptimistic(int, Duration, Attempt)} **/
+		public static final Duration MAX_BACKOFF = Duration.ofSeconds(1);
+
 		private final PreparedStatement stmt;
 		private final List<Object> conditionInputs;
 		private final long         counter;
 		private final List<Integer> fieldInputs;
+		private final Duration      timeout;
 
-		private PreparedUpdateQuery(PreparedStatement stmt, List<Integer> fieldInputs, List<Object> conditionInputs) {
+		private PreparedUpdateQuery(PreparedStatement stmt, List<Integer> fieldInputs, List<Object> conditionInputs, Duration timeout) {
 			this.stmt	     = stmt;
 			this.conditionInputs = conditionInputs;
 			this.fieldInputs     = fieldInputs;
+			this.timeout         = timeout;
 			counter	     = fieldInputs.size() + conditionInputs.stream().filter(o -> o instanceof Mark).count();
 		}
 
@@ -389,19 +543,83 @@ public class Query {
 			if (values.length != counter) throw new InvalidParameterException("apply(…) expected %s arguments, got %s!".formatted(counter, values.length));
 			int index = 0;
 			for (int fieldInputIndex : fieldInputs) {
-				stmt.setObject(++index, values[fieldInputIndex]);
+				bind(stmt, ++index, values[fieldInputIndex]);
 			}
 			for (var obj : conditionInputs) {
 				if (obj instanceof Mark mark) {
-					stmt.setObject(++index, values[mark.position()]);
+					bind(stmt, ++index, values[mark.position()]);
 				} else {
-					stmt.setObject(++index, obj);
+					bind(stmt, ++index, obj);
 				}
 			}
 			LOG.log(TRACE, () -> " → applying (" + String.join(", ", Arrays.stream(values).map(o -> "" + o).toList()) + ")");
-			stmt.execute();
+			var guard = StatementGuard.guard(stmt, effectiveTimeout(timeout));
+			try {
+				stmt.execute();
+			} finally {
+				guard.close();
+			}
 			return stmt;
 		}
+
+		/**
+		 * apply values in optimistic locking mode (see {@link UpdateQuery#version(String)}):
+		 * if no row is updated, because the version was changed concurrently, the update is retried with fresh values.
+		 * The delay between two attempts – plus a random jitter of up to the same amount – is doubled after every attempt, up to {@link #MAX_BACKOFF}.
+		 *
+		 * @param maxAttempts the maximum number of attempts
+		 * @param backoff the delay before the second attempt
+		 * @param attempt supplies the values for every attempt, typically by re-reading the current row and version
+		 * @return true, if an attempt updated at least one row, false if all attempts lost against concurrent updates
+		 * @throws SQLException if writing data fails, or the thread is interrupted while waiting for the next attempt
+		 */
+		public boolean applyOptimistic(int maxAttempts, Duration backoff, Attempt attempt) throws SQLException {
+			return applyOptimistic(maxAttempts, backoff, MAX_BACKOFF, attempt);
+		}
+
+		/**
+		 * apply values in optimistic locking mode (see {@link UpdateQuery#version(String)}):
+		 * if no row is updated, because the version was changed concurrently, the update is retried with fresh values.
+		 * The delay between two attempts – plus a random jitter of up to the same amount – is doubled after every attempt, up to the given maximum.
+		 *
+		 * @param maxAttempts the maximum number of attempts
+		 * @param backoff the delay before the second attempt
+		 * @param maxBackoff the upper bound of the delay between two attempts
+		 * @param attempt supplies the values for every attempt, typically by re-reading the current row and version
+		 * @return true, if an attempt updated at least one row, false if all attempts lost against concurrent updates
+		 * @throws SQLException if writing data fails, or the thread is interrupted while waiting for the next attempt
+		 */
+		public boolean applyOptimistic(int maxAttempts, Duration backoff, Duration maxBackoff, Attempt attempt) throws SQLException {
+			var max   = maxBackoff.toMillis();
+			var delay = Math.min(backoff.toMillis(), max);
+			for (int i = 1; i <= maxAttempts; i++) {
+				if (apply(attempt.values(i)).getUpdateCount() > 0) return true;
+				LOG.log(DEBUG, "Lost update in attempt {0} of {1}", i, maxAttempts);
+				if (i == maxAttempts) break;
+				try {
+					Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay + 1));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new SQLException("Interrupted while waiting for next attempt", e);
+				}
+				delay = Math.min(delay * 2, max);
+			}
+			return false;
+		}
+
+		/**
+		 * supplies the values for one attempt of an optimistic update
+		 */
+		@FunctionalInterface
+		public interface Attempt {
+			/**
+			 * provide the values for the given attempt
+			 * @param attempt the number of the attempt, starting with 1
+			 * @return the values passed to {@link PreparedUpdateQuery#apply(Object...)}
+			 * @throws SQLException if reading the current state fails
+			 */
+			Object[] values(int attempt) throws SQLException;
+		}
 	}
 
 	/**
@@ -415,6 +633,7 @@ public class Query {
 		private final List<Integer> fieldInputs     = new ArrayList<>();
 		private final List<String>  conditions      = new ArrayList<>();
 		private final List<Object>  conditionInputs = new ArrayList<>();
+		private       Duration      timeout         = null;
 
 		private UpdateQuery(String table, boolean ignore) {
 			this.table  = table;
@@ -463,7 +682,7 @@ public class Query {
 		public PreparedUpdateQuery prepare(Connection conn) throws SQLException {
 			LOG.log(DEBUG, () -> "preparing " + this);
 			var stmt = conn.prepareStatement(sql());
-			return new PreparedUpdateQuery(stmt, fieldInputs, conditionInputs);
+			return new PreparedUpdateQuery(stmt, fieldInputs, conditionInputs, timeout);
 		}
 
 		/**
@@ -490,11 +709,33 @@ public class Query {
 			return sb.toString();
 		}
 
+		/**
+		 * limit the execution time of each application of this query. If the limit is exceeded, or the calling thread is interrupted, the statement is cancelled.
+		 * @param timeout the maximum execution time, null to fall back to the default timeout
+		 * @return this UpdateQuery object
+		 */
+		public UpdateQuery timeout(Duration timeout) {
+			this.timeout = timeout;
+			return this;
+		}
+
 		@Override
 		public String toString() {
 			return fill();
 		}
 
+		/**
+		 * enable optimistic locking: the version column is incremented with every update
+		 * and the update is only applied, if the version still matches the value passed to apply(…).
+		 * The expected version is taken from the input at the current position, like a {@link Query#MARK} condition.
+		 * @param column the name of the version column
+		 * @return this UpdateQuery object
+		 */
+		public UpdateQuery version(String column) {
+			fields.add(column + " = " + column + " + 1");
+			return where(column, Condition.equal(MARK));
+		}
+
 		/**
 		 * add a where condition
 		 * @param field the field in which the condition is to be fulfilled
@@ -502,8 +743,22 @@ public class Query {
 		 * @return the updated query object
 		 */
 		public UpdateQuery where(String field, Condition condition) {
-			conditions.add(field + condition.sql());
-			for (var val : condition.values()) {
+			return addCondition(field + condition.sql(), condition.values());
+		}
+
+		/**
+		 * add a complete where condition, as created by Condition.field(…), and(…), or(…) and not(…)
+		 * @param condition the condition to be fulfilled
+		 * @return the updated query object
+		 * @throws IllegalArgumentException if the condition is not bound to a field
+		 */
+		public UpdateQuery where(Condition condition) {
+			return addCondition(complete(condition).sql(), condition.values());
+		}
+
+		private UpdateQuery addCondition(String sql, List<Object> values) {
+			conditions.add(sql);
+			for (var val : values) {
 				if (val instanceof Mark mark) {
 					// take note: input at {counter} goes into nth condition input
 					conditionInputs.add(mark.set(counter++));
@@ -519,6 +774,89 @@ public class Query {
 	private Query() {
 	}
 
+	/**
+	 * assign a value to a placeholder of a prepared statement.
+	 * InputStreams and Readers are bound as streams, so large values are not materialized in memory.
+	 * Drivers without support for streams of unknown length (e.g. SQLite) get the content read into memory.
+	 * @param stmt the statement to bind to
+	 * @param index the index of the placeholder (starting with 1)
+	 * @param value the value to bind
+	 * @throws SQLException if binding the value fails
+	 */
+	public static void bind(PreparedStatement stmt, int index, Object value) throws SQLException {
+		try {
+			switch (value) {
+				case InputStream in -> {
+					try {
+						stmt.setBinaryStream(index, in);
+					} catch (SQLFeatureNotSupportedException e) {
+						stmt.setBytes(index, in.readAllBytes());
+					}
+				}
+				case Reader reader -> {
+					try {
+						stmt.setCharacterStream(index, reader);
+					} catch (SQLFeatureNotSupportedException e) {
+						var writer = new StringWriter();
+						reader.transferTo(writer);
+						stmt.setString(index, writer.toString());
+					}
+				}
+				case null, default -> stmt.setObject(index, value);
+			}
+		} catch (IOException e) {
+			throw new SQLException("Failed to read value for parameter " + index, e);
+		}
+	}
+
+	private static Condition complete(Condition condition) {
+		if (!condition.isComplete()) throw new IllegalArgumentException("Condition \"%s\" needs to be bound to a field, use where(field, condition) or Condition.field(…)!".formatted(condition.sql()));
+		return condition;
+	}
+
+	/**
+	 * set the timeout applied to all queries, that do not define their own timeout
+	 * @param timeout the maximum execution time, null to disable the default timeout
+	 */
+	public static void defaultTimeout(Duration timeout) {
+		defaultTimeout = timeout;
+	}
+
+	/**
+	 * append the WHERE clause: field conditions first (grouped by field, in order of appearance), then complete conditions
+	 * @param sql the sql to append to
+	 * @param conditions the field conditions
+	 * @param clauses the complete conditions
+	 * @param values collects the values for the placeholders, in order of appearance
+	 */
+	static void appendWhere(StringBuilder sql, Map<String, List<Condition>> conditions, List<Condition> clauses, List<Object> values) {
+		List<String> where = new ArrayList<>();
+		for (var entry : conditions.entrySet()) {
+			for (Condition sub : entry.getValue()) {
+				where.add(entry.getKey() + sub.sql());
+				values.addAll(sub.values());
+			}
+		}
+		for (var clause : clauses) {
+			where.add(clause.sql());
+			values.addAll(clause.values());
+		}
+		if (!where.isEmpty()) sql.append(" WHERE ").append(String.join(" AND ", where));
+	}
+
+	private static String fill(String sql, ArrayList<Object> values) {
+		while (!values.isEmpty()) {
+			var    o = values.removeFirst();
+			String s = (o instanceof Number num) ? "" + num : "\"" + o + "\"";
+			sql      = sql.replaceFirst("\\?", s);
+		}
+		return sql;
+	}
+
+	private static Duration effectiveTimeout(Duration timeout) {
+		return timeout == null ? defaultTimeout : timeout;
+	}
+
 	/**
 	 * create a new DeleteQuery
 	 * @return the created Query
@@ -0,0 +1,20 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * converts the current row of a ResultSet into an object
+ * @param <T> the type of the created objects
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+	/**
+	 * create an object from the current row
+	 * @param rs the result set, positioned on the row to convert
+	 * @return the object created from the row
+	 * @throws SQLException if reading the row fails
+	 */
+	T map(ResultSet rs) throws SQLException;
+}
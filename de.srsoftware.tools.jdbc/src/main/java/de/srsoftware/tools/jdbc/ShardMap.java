@@ -0,0 +1,16 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+/**
+ * assigns shard keys to shards
+ * @param <K> the type of the shard keys
+ */
+@FunctionalInterface
+public interface ShardMap<K> {
+	/**
+	 * determine the shard responsible for a key
+	 * @param key the shard key, e.g. a tenant id
+	 * @return the name of the shard
+	 */
+	String shardOf(K key);
+}
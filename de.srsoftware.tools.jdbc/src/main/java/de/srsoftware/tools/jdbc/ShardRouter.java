@@ -0,0 +1,180 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Routes queries to one of several databases (shards), depending on a shard key.
+ * Closing the router shuts down the executor, if it was created by the router.
+ * @param <K> the type of the shard keys
+ */
+public class ShardRouter<K> implements AutoCloseable {
+	private final ShardMap<K>                   shardMap;
+	private final ExecutorService               executor;
+	private final boolean                       ownsExecutor;
+	private final Map<String, ConnectionSource> shards = new LinkedHashMap<>();
+
+	/**
+	 * a unit of work, executed on the connection of a shard
+	 * @param <T> the type of the result
+	 */
+	@FunctionalInterface
+	public interface Task<T> {
+		/**
+		 * run the task
+		 * @param conn the connection of the selected shard
+		 * @return the result of the task
+		 * @throws SQLException if accessing the database fails
+		 */
+		T run(Connection conn) throws SQLException;
+	}
+
+	/**
+	 * create a router, that runs scatter-gather queries on virtual threads
+	 * @param shardMap assigns shard keys to shards
+	 */
+	public ShardRouter(ShardMap<K> shardMap) {
+		this(shardMap, Executors.newVirtualThreadPerTaskExecutor(), true);
+	}
+
+	/**
+	 * create a router
+	 * @param shardMap assigns shard keys to shards
+	 * @param executor the executor used to query all shards in parallel, it is not shut down when the router is closed
+	 */
+	public ShardRouter(ShardMap<K> shardMap, ExecutorService executor) {
+		this(shardMap, executor, false);
+	}
+
+	private ShardRouter(ShardMap<K> shardMap, ExecutorService executor, boolean ownsExecutor) {
+		this.shardMap     = shardMap;
+		this.executor     = executor;
+		this.ownsExecutor = ownsExecutor;
+	}
+
+	/**
+	 * register a shard
+	 * @param shard the name of the shard, as returned by the shard map
+	 * @param source provides connections to the shard
+	 * @return this router
+	 */
+	public synchronized ShardRouter<K> add(String shard, ConnectionSource source) {
+		shards.put(shard, source);
+		return this;
+	}
+
+	/**
+	 * shut down the executor, if it was created by this router. Running scatter queries are completed.
+	 */
+	@Override
+	public void close() {
+		if (ownsExecutor) executor.shutdown();
+	}
+
+	/**
+	 * run a task on the shard responsible for the given key
+	 * @param key the shard key
+	 * @param task the task to run, e.g. <code>conn -&gt; query.execute(conn)</code>
+	 * @return the result of the task
+	 * @param <T> the type of the result
+	 * @throws SQLException if the task fails
+	 */
+	public <T> T on(K key, Task<T> task) throws SQLException {
+		return run(source(shardMap.shardOf(key)), task);
+	}
+
+	private static <T> T run(ConnectionSource source, Task<T> task) throws SQLException {
+		var conn = source.acquire();
+		try {
+			return task.run(conn);
+		} finally {
+			source.release(conn);
+		}
+	}
+
+	/**
+	 * run a select query on all shards in parallel and merge the results.
+	 * If a comparator is given, the rows of every shard are expected to be sorted accordingly (i.e. the query should have a matching sort(…)),
+	 * and the results are merged in that order. Otherwise, the results are concatenated in the order of shard registration.
+	 * The query's limit is applied per shard, so it should be set to the global limit; skip(…) must not be used.
+	 *
+	 * @param query the query to run
+	 * @param mapper converts the rows to objects
+	 * @param order the order of the rows, may be null
+	 * @param limit the maximum number of merged rows, null for no limit
+	 * @return the merged rows
+	 * @param <T> the type of the created objects
+	 * @throws SQLException if one of the shards fails
+	 */
+	public <T> List<T> scatter(Query.SelectQuery query, RowMapper<T> mapper, Comparator<? super T> order, Long limit) throws SQLException {
+		var results = new ArrayList<List<T>>();
+		for (var future : submitAll(conn -> query.list(conn, mapper))) results.add(await(future));
+		var merged = order == null ? concat(results) : merge(results, order, limit);
+		return limit == null || merged.size() <= limit ? merged : merged.subList(0, limit.intValue());
+	}
+
+	/**
+	 * the names of the registered shards
+	 * @return the set of shard names
+	 */
+	public synchronized Set<String> shards() {
+		return Set.copyOf(shards.keySet());
+	}
+
+	private synchronized ConnectionSource source(String shard) {
+		var source = shards.get(shard);
+		if (source == null) throw new IllegalStateException("No connection source registered for shard \"%s\"!".formatted(shard));
+		return source;
+	}
+
+	private synchronized List<ConnectionSource> sources() {
+		return List.copyOf(shards.values());
+	}
+
+	private <T> List<Future<T>> submitAll(Task<T> task) {
+		var futures = new ArrayList<Future<T>>();
+		for (var source : sources()) futures.add(executor.submit(() -> run(source, task)));
+		return futures;
+	}
+
+	private static <T> T await(Future<T> future) throws SQLException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for shard", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException sqle) throw sqle;
+			throw new SQLException(e.getCause());
+		}
+	}
+
+	private static <T> List<T> concat(List<List<T>> lists) {
+		var result = new ArrayList<T>();
+		for (var list : lists) result.addAll(list);
+		return result;
+	}
+
+	private static <T> List<T> merge(List<List<T>> lists, Comparator<? super T> order, Long limit) {
+		// k-way merge: the queue holds the next unmerged element of every shard
+		record Cursor<T>(T head, Iterator<T> rest) {}
+		var queue = new PriorityQueue<Cursor<T>>((a, b) -> order.compare(a.head(), b.head()));
+		for (var list : lists) {
+			var it = list.iterator();
+			if (it.hasNext()) queue.add(new Cursor<>(it.next(), it));
+		}
+		var result = new ArrayList<T>();
+		while (!queue.isEmpty() && (limit == null || result.size() < limit)) {
+			var cursor = queue.poll();
+			result.add(cursor.head());
+			if (cursor.rest().hasNext()) queue.add(new Cursor<>(cursor.rest().next(), cursor.rest()));
+		}
+		return result;
+	}
+}
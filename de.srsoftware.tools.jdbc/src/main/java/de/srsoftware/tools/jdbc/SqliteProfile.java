@@ -0,0 +1,268 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static de.srsoftware.tools.jdbc.Query.Dialect.SQLITE;
+import static java.lang.System.Logger.Level.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of performance related pragmas for the {@link Query.Dialect#SQLITE SQLITE} dialect,
+ * to be applied whenever a connection is opened or borrowed from a pool
+ */
+public class SqliteProfile {
+	private static final System.Logger LOG = System.getLogger(SqliteProfile.class.getSimpleName());
+
+	/**
+	 * journal modes of the database
+	 */
+	public enum JournalMode {
+		/** DELETE   **/ DELETE,
+		/** TRUNCATE **/ TRUNCATE,
+		/** PERSIST  **/ PERSIST,
+		/** MEMORY   **/ MEMORY,
+		/** WAL      **/ WAL,
+		/** OFF      **/ OFF
+	}
+
+	/**
+	 * how often the database is synced to disk
+	 */
+	public enum Synchronous {
+		/** OFF    **/ OFF,
+		/** NORMAL **/ NORMAL,
+		/** FULL   **/ FULL,
+		/** EXTRA  **/ EXTRA
+	}
+
+	/**
+	 * storage used for temporary tables and indices
+	 */
+	public enum TempStore {
+		/** DEFAULT **/ DEFAULT,
+		/** FILE    **/ FILE,
+		/** MEMORY  **/ MEMORY
+	}
+
+	private JournalMode journalMode       = JournalMode.WAL;
+	private Synchronous synchronous       = Synchronous.NORMAL;
+	private Long        mmapSize          = null;
+	private Long        cacheSizeKiB      = null;
+	private TempStore   tempStore         = null;
+	private Long        walAutoCheckpoint = null;
+	private Long        busyTimeout       = null;
+	private Duration    maintenance       = null;
+
+	/**
+	 * create a profile that only switches to WAL mode with synchronous=NORMAL, all other pragmas keep the defaults of the connection
+	 */
+	public SqliteProfile() {
+	}
+
+	/**
+	 * preset for databases, that are mostly read: large memory map and page cache
+	 * @return the preset profile
+	 */
+	public static SqliteProfile readHeavy() {
+		return new SqliteProfile()  //
+			.mmapSize(256L << 20)
+			.cacheSize(64L << 10)
+			.tempStore(TempStore.MEMORY)
+			.busyTimeout(5_000)
+			.maintenance(Duration.ofHours(1));
+	}
+
+	/**
+	 * preset for databases with many writes: moderate memory map, larger WAL between automatic checkpoints and frequent maintenance
+	 * @return the preset profile
+	 */
+	public static SqliteProfile writeHeavy() {
+		return new SqliteProfile()  //
+			.mmapSize(64L << 20)
+			.cacheSize(16L << 10)
+			.tempStore(TempStore.MEMORY)
+			.walAutoCheckpoint(10_000)
+			.busyTimeout(5_000)
+			.maintenance(Duration.ofMinutes(5));
+	}
+
+	/**
+	 * apply the pragmas of this profile to a connection
+	 * @param conn the connection to configure
+	 * @return the connection
+	 * @throws SQLException if one of the pragmas cannot be set
+	 */
+	public Connection apply(Connection conn) throws SQLException {
+		try (var stmt = conn.createStatement()) {
+			for (var pragma : pragmas()) {
+				LOG.log(DEBUG, "applying PRAGMA {0}", pragma);
+				stmt.execute("PRAGMA " + pragma);
+			}
+		}
+		return conn;
+	}
+
+	/**
+	 * set the maximum number of milliseconds to wait for a locked database
+	 * @param millis the timeout in milliseconds
+	 * @return this profile
+	 */
+	public SqliteProfile busyTimeout(long millis) {
+		busyTimeout = millis;
+		return this;
+	}
+
+	/**
+	 * set the size of the page cache
+	 * @param kiB the cache size in kibibytes
+	 * @return this profile
+	 */
+	public SqliteProfile cacheSize(long kiB) {
+		cacheSizeKiB = kiB;
+		return this;
+	}
+
+	/**
+	 * run a passive WAL checkpoint on the given connection
+	 * @param conn the connection to act on
+	 * @throws SQLException if the checkpoint fails
+	 */
+	public static void checkpoint(Connection conn) throws SQLException {
+		try (var stmt = conn.createStatement()) {
+			stmt.execute("PRAGMA wal_checkpoint(PASSIVE)");
+		}
+	}
+
+	/**
+	 * the dialect this profile is meant for
+	 * @return {@link Query.Dialect#SQLITE}
+	 */
+	public Query.Dialect dialect() {
+		return SQLITE;
+	}
+
+	/**
+	 * set the journal mode
+	 * @param mode the journal mode, null to keep the mode of the database
+	 * @return this profile
+	 */
+	public SqliteProfile journalMode(JournalMode mode) {
+		journalMode = mode;
+		return this;
+	}
+
+	/**
+	 * set the interval for periodic maintenance (wal_checkpoint and optimize)
+	 * @param interval the interval, null to disable periodic maintenance
+	 * @return this profile
+	 */
+	public SqliteProfile maintenance(Duration interval) {
+		maintenance = interval;
+		return this;
+	}
+
+	/**
+	 * set the maximum number of bytes of the database file, that are accessed via memory mapped I/O
+	 * @param bytes the mmap size, 0 disables memory mapping
+	 * @return this profile
+	 */
+	public SqliteProfile mmapSize(long bytes) {
+		mmapSize = bytes;
+		return this;
+	}
+
+	/**
+	 * let sqlite update its query planner statistics, where it deems it useful
+	 * @param conn the connection to act on
+	 * @throws SQLException if the optimization fails
+	 */
+	public static void optimize(Connection conn) throws SQLException {
+		try (var stmt = conn.createStatement()) {
+			stmt.execute("PRAGMA optimize");
+		}
+	}
+
+	/**
+	 * the list of pragmas applied by this profile
+	 * @return a list of "name=value" strings
+	 */
+	public List<String> pragmas() {
+		var list = new ArrayList<String>();
+		if (busyTimeout != null) list.add("busy_timeout=" + busyTimeout);
+		if (journalMode != null) list.add("journal_mode=" + journalMode);
+		if (synchronous != null) list.add("synchronous=" + synchronous);
+		if (mmapSize != null) list.add("mmap_size=" + mmapSize);
+		if (cacheSizeKiB != null) list.add("cache_size=-" + cacheSizeKiB);
+		if (tempStore != null) list.add("temp_store=" + tempStore);
+		if (walAutoCheckpoint != null) list.add("wal_autocheckpoint=" + walAutoCheckpoint);
+		return list;
+	}
+
+	/**
+	 * periodically run wal_checkpoint and optimize, using the interval set by {@link #maintenance(Duration)}.
+	 * Every run acquires its own connection from the source and releases it afterwards.
+	 * Maintenance runs on a thread of the scheduler, so the source should be a pool – a {@link ConnectionSource#of(Connection) shared connection} must not be used by other threads at the same time.
+	 * @param source provides the connections to maintain
+	 * @param scheduler the executor used to run the maintenance
+	 * @return the scheduled task, which may be cancelled, or null if no maintenance interval is set
+	 */
+	public ScheduledFuture<?> schedule(ConnectionSource source, ScheduledExecutorService scheduler) {
+		if (maintenance == null) return null;
+		var millis = maintenance.toMillis();
+		return scheduler.scheduleWithFixedDelay(() -> {
+			try {
+				var conn = source.acquire();
+				try {
+					checkpoint(conn);
+					optimize(conn);
+				} finally {
+					source.release(conn);
+				}
+			} catch (SQLException | RuntimeException e) { // an uncaught exception would cancel all further runs
+				LOG.log(WARNING, "Failed to maintain database:", e);
+			}
+		}, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * set the synchronous mode
+	 * @param mode the synchronous mode, null to keep the default of the connection
+	 * @return this profile
+	 */
+	public SqliteProfile synchronous(Synchronous mode) {
+		synchronous = mode;
+		return this;
+	}
+
+	/**
+	 * set the storage for temporary tables and indices
+	 * @param store the temp store
+	 * @return this profile
+	 */
+	public SqliteProfile tempStore(TempStore store) {
+		tempStore = store;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return String.join("; ", pragmas());
+	}
+
+	/**
+	 * set the number of WAL pages after which an automatic checkpoint is run
+	 * @param pages the number of pages
+	 * @return this profile
+	 */
+	public SqliteProfile walAutoCheckpoint(long pages) {
+		walAutoCheckpoint = pages;
+		return this;
+	}
+}
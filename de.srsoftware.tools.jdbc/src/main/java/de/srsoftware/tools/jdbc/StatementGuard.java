@@ -0,0 +1,128 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static java.lang.System.Logger.Level.*;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * watches running statements and cancels them, if the calling thread is interrupted or their deadline passes.
+ * Deadlines are enforced by a task scheduled for the exact deadline.
+ * Interrupts can only be detected by polling, which is done only while statements are running.
+ */
+class StatementGuard implements AutoCloseable {
+	private static final System.Logger       LOG           = System.getLogger(StatementGuard.class.getSimpleName());
+	private static final long                POLL_INTERVAL = 50;
+	private static final Set<StatementGuard> RUNNING       = ConcurrentHashMap.newKeySet();
+
+	private final Statement    stmt;
+	private final Thread       thread;
+	private final boolean      timed;
+	private final long         deadline;
+	private ScheduledFuture<?> expiry = null;  // cancels the statement at its deadline, guarded by this
+	private boolean            done   = false; // set on cancel and close, guarded by this
+
+	/**
+	 * holds the watchdog thread, which is created when the class is initialized, i.e. on first use of a guard
+	 */
+	private static class Watchdog {
+		private static final ScheduledThreadPoolExecutor EXECUTOR = executor();
+		private static ScheduledFuture<?>                poller   = null; // polls for interrupts while statements are running, guarded by Watchdog.class
+
+		private static ScheduledThreadPoolExecutor executor() {
+			var executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				var thread = new Thread(runnable, StatementGuard.class.getSimpleName());
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true); // expiry tasks of completed statements are dropped right away
+			return executor;
+		}
+
+		private static synchronized void watch(StatementGuard guard) {
+			RUNNING.add(guard);
+			if (poller == null) poller = EXECUTOR.scheduleWithFixedDelay(Watchdog::poll, POLL_INTERVAL, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+		}
+
+		private static void poll() {
+			var now = System.nanoTime();
+			for (var guard : RUNNING) guard.check(now);
+			synchronized (Watchdog.class) {
+				if (RUNNING.isEmpty() && poller != null) { // park until the next statement is guarded
+					poller.cancel(false);
+					poller = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * checks, whether the watchdog polls for interrupts
+	 * @return true, while statements are running or until the next poll after the last one completed
+	 */
+	static boolean polling() {
+		synchronized (Watchdog.class) {
+			return Watchdog.poller != null;
+		}
+	}
+
+	private StatementGuard(Statement stmt, Thread thread, boolean timed, long deadline) {
+		this.stmt     = stmt;
+		this.thread   = thread;
+		this.timed    = timed;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * cancel the statement, if its deadline passed or its thread was interrupted – unless the guard has been closed.
+	 * Runs under the same lock as {@link #close()}, so a statement, that is reused after closing its guard, is never cancelled.
+	 * @param now the current value of System.nanoTime()
+	 */
+	synchronized void check(long now) {
+		if (done) return;
+		var interrupted = thread.isInterrupted();
+		if (!interrupted && (!timed || now - deadline < 0)) return;
+		done = true;
+		try {
+			LOG.log(DEBUG, interrupted ? "Thread {0} was interrupted, cancelling statement" : "Deadline of statement passed, cancelling statement on thread {0}", thread.getName());
+			stmt.cancel();
+		} catch (SQLException e) {
+			LOG.log(WARNING, "Failed to cancel statement:", e);
+		}
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			done = true;
+			if (expiry != null) expiry.cancel(false);
+		}
+		RUNNING.remove(this);
+	}
+
+	/**
+	 * apply the timeout to the statement and watch it until the returned guard is closed
+	 * @param stmt the statement to watch
+	 * @param timeout the maximum duration of the statement, null for no limit – such statements are only cancelled on interrupt
+	 * @return the guard, which must be closed after execution
+	 * @throws SQLException if the query timeout cannot be set
+	 */
+	static StatementGuard guard(Statement stmt, Duration timeout) throws SQLException {
+		if (timeout != null) stmt.setQueryTimeout((int)Math.max(1, (timeout.toMillis() + 999) / 1000));
+		var guard = timeout == null ? new StatementGuard(stmt, Thread.currentThread(), false, 0) : new StatementGuard(stmt, Thread.currentThread(), true, System.nanoTime() + timeout.toNanos());
+		if (timeout != null) {
+			synchronized (guard) {
+				guard.expiry = Watchdog.EXECUTOR.schedule(() -> guard.check(System.nanoTime()), timeout.toNanos(), TimeUnit.NANOSECONDS);
+			}
+		}
+		Watchdog.watch(guard); // interrupts are detected by polling
+		return guard;
+	}
+}
@@ -0,0 +1,134 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+public class NearCacheTest {
+	private record User(long id, String name, String role) {
+	}
+
+	private static final RowMapper<User> MAPPER = rs -> rs.getString("role").equals("hidden") ? null : new User(rs.getLong("id"), rs.getString("name"), rs.getString("role"));
+
+	private static Connection database(String url) throws SQLException {
+		var conn = DriverManager.getConnection(url);
+		conn.prepareStatement("CREATE TABLE IF NOT EXISTS users (id INT PRIMARY KEY, name TEXT, role TEXT, version INT)").execute();
+		conn.prepareStatement("DELETE FROM users").execute();
+		Query.insertInto("users", "id", "name", "role", "version").values(1, "alice", "admin", 1).values(2, "bob", "user", 1).values(3, "carol", "user", 1).values(4, "dave", "hidden", 1).execute(conn);
+		return conn;
+	}
+
+	@Test
+	void testList() throws SQLException {
+		try (var conn = database("jdbc:sqlite::memory:")) {
+			var users = Query.select("*").from("users").where("role", Condition.equal("user")).sort("id").list(conn, MAPPER);
+			assertEquals(List.of(new User(2, "bob", "user"), new User(3, "carol", "user")), users);
+		}
+	}
+
+	@Test
+	void testLoad() throws SQLException {
+		try (var conn = database("jdbc:sqlite::memory:")) {
+			var cache = new NearCache<>("users", MAPPER, User::id).index("role", User::role).load(conn);
+			assertEquals(3, cache.size()); // rows mapped to null are skipped
+			assertEquals("alice", cache.get(1L).map(User::name).orElse(null));
+			assertTrue(cache.get(4L).isEmpty());
+			assertEquals(2, cache.find("role", "user").size());
+			assertTrue(cache.find("role", "guest").isEmpty());
+			assertThrows(IllegalArgumentException.class, () -> cache.find("name", "bob"));
+
+			cache.insert(conn, Query.insertInto("users", "id", "name", "role", "version").values(5, "erin", "admin", 2));
+			assertEquals(2, cache.find("role", "admin").size());
+		}
+	}
+
+	@Test
+	void testRefresh() throws SQLException {
+		try (var conn = database("jdbc:sqlite::memory:")) {
+			var cache = new NearCache<>("users", MAPPER, User::id).versionColumn("version").load(conn);
+			assertFalse(cache.refresh(conn));
+			conn.prepareStatement("UPDATE users SET name = 'bobby', version = 2 WHERE id = 2").execute();
+			assertEquals("bob", cache.get(2L).map(User::name).orElse(null));
+			assertTrue(cache.refresh(conn));
+			assertEquals("bobby", cache.get(2L).map(User::name).orElse(null));
+			assertFalse(cache.refresh(conn));
+		}
+	}
+
+	@Test
+	void testScheduledRefreshSurvivesFailures() throws Exception {
+		var scheduler = Executors.newSingleThreadScheduledExecutor();
+		try (var conn = database("jdbc:sqlite::memory:")) {
+			var fail = new AtomicBoolean(false);
+			RowMapper<User> failing = rs -> {
+				if (fail.getAndSet(false)) throw new IllegalStateException("mapper failed");
+				return MAPPER.map(rs);
+			};
+			var cache = new NearCache<>("users", failing, User::id).load(conn);
+			fail.set(true); // the first scheduled refresh fails
+			conn.prepareStatement("UPDATE users SET name = 'bobby' WHERE id = 2").execute();
+			cache.schedule(ConnectionSource.of(conn), scheduler, Duration.ofMillis(10));
+			for (int i = 0; i < 500 && !"bobby".equals(cache.get(2L).map(User::name).orElse(null)); i++) Thread.sleep(10);
+			assertFalse(fail.get());
+			assertEquals("bobby", cache.get(2L).map(User::name).orElse(null)); // refreshed by a later run
+		} finally {
+			scheduler.shutdownNow();
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void testOverlappingLoads() throws Exception {
+		var file = File.createTempFile("nearcache", ".db");
+		var url  = "jdbc:sqlite:" + file;
+		try (var first = new SqliteProfile().apply(database(url)); var second = DriverManager.getConnection(url)) { // WAL: the writer is not blocked by the slow reader
+			var started = new CountDownLatch(1);
+			var release = new CountDownLatch(1);
+			RowMapper<User> slow = rs -> {
+				if (Thread.currentThread().getName().equals("slow-load")) {
+					started.countDown();
+					try {
+						release.await(5, TimeUnit.SECONDS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return MAPPER.map(rs);
+			};
+			var cache  = new NearCache<>("users", slow, User::id);
+			var loader = new CompletableFuture<Void>();
+			var thread = new Thread(() -> {
+				try {
+					cache.load(first);
+					loader.complete(null);
+				} catch (Throwable e) {
+					loader.completeExceptionally(e);
+				}
+			}, "slow-load");
+			thread.start();
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+
+			second.prepareStatement("DELETE FROM users WHERE id = 3").execute();
+			cache.load(second); // started later, sees the deletion
+			assertEquals(2, cache.size());
+
+			release.countDown();
+			loader.get(5, TimeUnit.SECONDS);
+			assertEquals(2, cache.size()); // the outdated snapshot finished last, but was discarded
+		} finally {
+			for (var suffix : new String[]{"", "-wal", "-shm"}) new File(file + suffix).delete();
+		}
+	}
+}
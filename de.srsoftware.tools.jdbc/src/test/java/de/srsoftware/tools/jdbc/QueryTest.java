@@ -6,8 +6,23 @@ import static de.srsoftware.tools.jdbc.Query.Dialect.*;
 import static de.srsoftware.tools.jdbc.Query.MARK;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
+import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 
 
@@ -57,6 +72,33 @@ public class QueryTest {
 		assertEquals("SELECT id, title, year FROM movies WHERE year NOT IN (2020) AND year NOT IN (2021, 2022) AND title IN (\"Wall:E\")", query.toString());
 	}
 
+	@Test
+	void testOr() {
+		var query = Query.select("id", "title", "year").from("movies").where("year", moreThan(1980)).where(or(field("title", like("%Space%")), and(field("year", lessThan(1990)), not(field("title", isNull())))));
+		assertEquals("SELECT id, title, year FROM movies WHERE year > 1980 AND (title LIKE \"%Space%\" OR (year < 1990 AND NOT (title IS NULL)))", query.toString());
+	}
+
+	@Test
+	void testDelete() {
+		var query = Query.delete().from("movies").where("year", lessThan(1980)).where(or(field("title", in("Wall:E")), field("title", isNull())));
+		assertEquals("DELETE FROM movies WHERE year < 1980 AND (title IN (\"Wall:E\") OR title IS NULL)", query.toString());
+	}
+
+	@Test
+	void testIncompleteConditions() {
+		assertThrows(IllegalArgumentException.class, () -> Query.select("id").from("movies").where(equal(5)));
+		assertThrows(IllegalArgumentException.class, () -> Query.delete().from("movies").where(in(1, 2)));
+		assertThrows(IllegalArgumentException.class, () -> Query.update("movies").set("title").where(isNull()));
+		assertThrows(IllegalArgumentException.class, () -> and());
+		assertThrows(IllegalArgumentException.class, () -> or());
+	}
+
+	@Test
+	void testUpdateOr() {
+		var query = Query.update("movies").set("title").where(or(field("id", equal(MARK)), field("year", in(1999, MARK))));
+		assertEquals("UPDATE movies SET title = args[0] WHERE (id = args[1] OR year IN (1999, args[2]))", query.toString());
+	}
+
 	@Test
 	void testLess() {
 		var query = Query.select("id", "title", "year").from("movies").where("year", Condition.lessThan(2020));
@@ -90,6 +132,22 @@ public class QueryTest {
 		assertEquals("SELECT id, title, year, firstname FROM movies LEFT JOIN cast ON movies.id = cast.movie WHERE year NOT IN (1999, 1998) AND year > 1990 AND title LIKE \"%Space%\" ORDER BY title ASC, year DESC LIMIT 5 OFFSET 5", query.toString());
 	}
 
+	@Test
+	void testCount() {
+		var query = Query.select("id", "title").from("movies").where("year", moreThan(1990)).sort("title ASC");
+		assertEquals("SELECT COUNT(*) FROM movies WHERE year > ?", query.countSql(new ArrayList<>()));
+		query.limit(5);
+		assertEquals("SELECT COUNT(*) FROM (SELECT id, title FROM movies WHERE year > ? LIMIT 5) AS counted", query.countSql(new ArrayList<>()));
+	}
+
+	@Test
+	void testExists() {
+		var values = new ArrayList<>();
+		var query  = Query.select("id", "title").from("movies").where("year", moreThan(1990)).sort("title ASC").limit(5);
+		assertEquals("SELECT 1 FROM movies WHERE year > ? LIMIT 1", query.existsSql(values));
+		assertEquals(List.of(1990), values);
+	}
+
 	@Test
 	void testInsert() {
 		var query = Query  //
@@ -162,6 +220,50 @@ public class QueryTest {
 		assertEquals("UPDATE movies SET title = args[0], year = args[1], id = args[3] WHERE year = args[2] AND id NOT IN (5)", query.toString());
 	}
 
+	@Test
+	void testUpdateVersion() {
+		var query = Query.update("movies").set("title").where("id", equal(MARK)).version("version");
+		assertEquals("UPDATE movies SET title = args[0], version = version + 1 WHERE id = args[1] AND version = args[2]", query.toString());
+	}
+
+	@Test
+	void testOptimisticRetry() throws SQLException {
+		try (var conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+			conn.prepareStatement("CREATE TABLE movies (id INT PRIMARY KEY, title TEXT, version INT)").execute();
+			Query.insertInto("movies", "id", "title", "version").values(1, "first", 1).execute(conn);
+			var update   = Query.update("movies").set("title").where("id", equal(MARK)).version("version").prepare(conn);
+			var attempts = new ArrayList<Integer>();
+			var updated  = update.applyOptimistic(5, Duration.ofMillis(1), attempt -> {
+				attempts.add(attempt);
+				if (attempt == 1) { // a concurrent writer bumps the version after we read it
+					conn.prepareStatement("UPDATE movies SET title = 'concurrent', version = 2 WHERE id = 1").execute();
+					return new Object[]{"mine", 1, 1};
+				}
+				var rs = Query.select("version").from("movies").where("id", equal(1)).exec(conn);
+				try {
+					assertTrue(rs.next());
+					return new Object[]{"mine", 1, rs.getInt(1)};
+				} finally {
+					rs.getStatement().close();
+				}
+			});
+			assertTrue(updated);
+			assertEquals(List.of(1, 2), attempts);
+			var rs = Query.select("title", "version").from("movies").exec(conn);
+			assertTrue(rs.next());
+			assertEquals("mine", rs.getString(1));
+			assertEquals(3, rs.getInt(2));
+			rs.getStatement().close();
+
+			attempts.clear();
+			assertFalse(update.applyOptimistic(3, Duration.ofMillis(1), Duration.ofMillis(2), attempt -> {
+				attempts.add(attempt);
+				return new Object[]{"stale", 1, 1};
+			}));
+			assertEquals(List.of(1, 2, 3), attempts);
+		}
+	}
+
 	@Test
 	void testUpdateIgnore() {
 		var query = Query.updateIgnore("movies").set("title", "year").where("year", equal(MARK)).set("id").where("id", notIn(5));
@@ -192,4 +294,133 @@ public class QueryTest {
 		assertFalse(rs.next());
 		rs.close();
 	}
+
+	@Test
+	void testLobWithSQLite() throws SQLException, IOException {
+		try (var conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+			try (var stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE attachments (id INT PRIMARY KEY, data BLOB, text TEXT)");
+			}
+			var bytes = "binary content".getBytes();
+			Query.insertInto("attachments", "id", "data", "text").values(1, new ByteArrayInputStream(bytes), new StringReader("character content")).execute(conn).close();
+
+			try (var rs = Query.select("*").from("attachments").exec(conn)) {
+				assertTrue(rs.next());
+				var out = new ByteArrayOutputStream();
+				assertEquals(bytes.length, Lob.transfer(rs, "data", Channels.newChannel(out)));
+				assertArrayEquals(bytes, out.toByteArray());
+				var reader = Lob.characterStream(rs, "text");
+				var sb     = new StringBuilder();
+				int c;
+				while ((c = reader.read()) >= 0) sb.append((char)c);
+				assertEquals("character content", sb.toString());
+			}
+		}
+	}
+
+	@Test
+	void testCloseOnBindFailure() throws SQLException {
+		try (var conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+			try (var stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE attachments (id INT PRIMARY KEY, data BLOB)");
+			}
+			var prepared = new ArrayList<PreparedStatement>();
+			var tracking = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+				var result = method.invoke(conn, args);
+				if (result instanceof PreparedStatement stmt) prepared.add(stmt);
+				return result;
+			});
+			var broken = new InputStream() {
+				@Override
+				public int read() throws IOException {
+					throw new IOException("broken stream");
+				}
+			};
+			assertThrows(SQLException.class, () -> Query.delete().from("attachments").where("data", equal(broken)).execute(tracking));
+			assertEquals(1, prepared.size());
+			assertTrue(prepared.get(0).isClosed());
+		}
+	}
+
+	@Test
+	void testInterruptWhileReading() throws SQLException {
+		try (var conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+			try (var stmt = conn.createStatement()) {
+				stmt.execute("CREATE TABLE numbers (n INT)");
+			}
+			var insert = Query.insertInto("numbers", "n");
+			for (int i = 0; i < 100; i++) insert.values(i);
+			insert.execute(conn).close();
+
+			var select = Query.select("n").from("numbers");
+			try {
+				assertThrows(SQLException.class, () -> select.list(conn, rs -> {
+					if (rs.getInt(1) == 0) {
+						Thread.currentThread().interrupt();
+						var end = System.nanoTime() + Duration.ofMillis(500).toNanos();
+						while (System.nanoTime() < end) Thread.onSpinWait(); // give the watchdog time to cancel the statement
+					}
+					return rs.getInt(1);
+				}));
+			} finally {
+				Thread.interrupted();
+			}
+			assertEquals(100, select.list(conn, rs -> rs.getInt(1)).size());
+		}
+	}
+
+	@Test
+	void testSqliteProfile() throws Exception {
+		assertEquals("journal_mode=WAL; synchronous=NORMAL", new SqliteProfile().toString());
+		assertEquals("busy_timeout=5000; journal_mode=WAL; synchronous=NORMAL; mmap_size=67108864; cache_size=-16384; temp_store=MEMORY; wal_autocheckpoint=10000", SqliteProfile.writeHeavy().toString());
+
+		var file = File.createTempFile("profile", ".db"); // in-memory databases do not support WAL
+		try (var conn = DriverManager.getConnection("jdbc:sqlite:" + file)) {
+			var defaultCache = pragma(conn, "cache_size");
+			new SqliteProfile().apply(conn);
+			assertEquals("wal", pragma(conn, "journal_mode"));
+			assertEquals("1", pragma(conn, "synchronous")); // NORMAL
+			assertEquals(defaultCache, pragma(conn, "cache_size"));
+
+			SqliteProfile.writeHeavy().apply(conn);
+			assertEquals("5000", pragma(conn, "busy_timeout"));
+			assertEquals("-16384", pragma(conn, "cache_size"));
+			assertEquals("2", pragma(conn, "temp_store")); // MEMORY
+			assertEquals("10000", pragma(conn, "wal_autocheckpoint"));
+		} finally {
+			for (var suffix : new String[]{"", "-wal", "-shm"}) new File(file + suffix).delete();
+		}
+	}
+
+	@Test
+	void testSqliteProfileModes() throws Exception {
+		var profile = new SqliteProfile().journalMode(SqliteProfile.JournalMode.TRUNCATE).synchronous(SqliteProfile.Synchronous.FULL);
+		assertEquals("journal_mode=TRUNCATE; synchronous=FULL", profile.toString());
+		assertEquals("", profile.journalMode(null).synchronous(null).toString());
+	}
+
+	@Test
+	void testMaintenanceSurvivesFailures() throws Exception {
+		var runs      = new AtomicInteger();
+		var scheduler = Executors.newSingleThreadScheduledExecutor();
+		try (var conn = DriverManager.getConnection("jdbc:sqlite::memory:")) {
+			ConnectionSource source = () -> {
+				if (runs.incrementAndGet() == 1) throw new IllegalStateException("pool closed");
+				return conn;
+			};
+			var task = new SqliteProfile().maintenance(Duration.ofMillis(10)).schedule(source, scheduler);
+			for (int i = 0; i < 500 && runs.get() < 3; i++) Thread.sleep(10);
+			assertTrue(runs.get() >= 3, "maintenance should continue after a failed run");
+			assertFalse(task.isDone());
+		} finally {
+			scheduler.shutdownNow();
+		}
+	}
+
+	private static String pragma(Connection conn, String name) throws SQLException {
+		try (var stmt = conn.createStatement(); var rs = stmt.executeQuery("PRAGMA " + name)) {
+			assertTrue(rs.next());
+			return rs.getString(1);
+		}
+	}
 }
@@ -0,0 +1,34 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import org.junit.jupiter.api.Test;
+
+public class ShardMapTest {
+	@Test
+	public void testDistribution() {
+		var map  = new ConsistentHashShardMap<Integer>("a", "b", "c");
+		var used = new HashSet<String>();
+		for (int tenant = 0; tenant < 1000; tenant++) used.add(map.shardOf(tenant));
+		assertEquals(3, used.size());
+	}
+
+	@Test
+	public void testStability() {
+		var map    = new ConsistentHashShardMap<Integer>("a", "b", "c");
+		var before = new HashMap<Integer, String>();
+		for (int tenant = 0; tenant < 1000; tenant++) before.put(tenant, map.shardOf(tenant));
+		map.add("d");
+		int moved = 0;
+		for (int tenant = 0; tenant < 1000; tenant++) {
+			var shard = map.shardOf(tenant);
+			if (shard.equals(before.get(tenant))) continue;
+			assertEquals("d", shard);
+			moved++;
+		}
+		assertTrue(moved > 0 && moved < 500);
+	}
+}
@@ -0,0 +1,54 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+public class ShardRouterTest {
+	private record Movie(int id, int year) {
+	}
+
+	private static final RowMapper<Movie> MAPPER = rs -> new Movie(rs.getInt("id"), rs.getInt("year"));
+
+	@Test
+	public void testScatter() throws Exception {
+		var connections = new ArrayList<Connection>();
+		var router      = new ShardRouter<Integer>(id -> "shard" + id % 3);
+		try (router) {
+			for (int i = 0; i < 3; i++) {
+				var conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+				conn.prepareStatement("CREATE TABLE movies (id INT PRIMARY KEY, year INT)").execute();
+				connections.add(conn);
+				router.add("shard" + i, ConnectionSource.of(conn));
+			}
+			for (int i = 1; i <= 9; i++) {
+				var id   = i;
+				var year = 2000 + (id * 7) % 10;
+				router.on(id, conn -> Query.insertInto("movies", "id", "year").values(id, year).execute(conn));
+			}
+			for (int i = 0; i < 3; i++) { // every shard holds only its own keys
+				var rs = Query.select("id").from("movies").exec(connections.get(i));
+				while (rs.next()) assertEquals(i, rs.getInt(1) % 3);
+				rs.getStatement().close();
+			}
+
+			var byYear = Comparator.comparingInt(Movie::year);
+			var sorted = router.scatter(Query.select("*").from("movies").sort("year").limit(4), MAPPER, byYear, 4L);
+			assertEquals(List.of(2001, 2002, 2003, 2004), sorted.stream().map(Movie::year).toList());
+
+			var all = router.scatter(Query.select("*").from("movies"), MAPPER, null, null);
+			assertEquals(9, all.size());
+			assertEquals(List.of(3, 6, 9), all.subList(0, 3).stream().map(Movie::id).sorted().toList()); // concatenated in order of registration
+		} finally {
+			for (var conn : connections) conn.close();
+		}
+		assertThrows(RejectedExecutionException.class, () -> router.scatter(Query.select("*").from("movies"), MAPPER, null, null)); // closed by the try block
+	}
+}
@@ -0,0 +1,91 @@
+/* © SRSoftware 2025 */
+package de.srsoftware.tools.jdbc;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class StatementGuardTest {
+	private final AtomicInteger cancels  = new AtomicInteger();
+	private final AtomicInteger timeouts = new AtomicInteger();
+
+	private Statement statement() {
+		return (Statement)Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class}, (proxy, method, args) -> {
+			switch (method.getName()) {
+				case "cancel" -> cancels.incrementAndGet();
+				case "setQueryTimeout" -> timeouts.set((Integer)args[0]);
+			}
+			return null;
+		});
+	}
+
+	private void awaitCancel() throws InterruptedException {
+		for (int i = 0; i < 100 && cancels.get() == 0; i++) Thread.sleep(20);
+	}
+
+	private void awaitInterruptedCancel() {
+		var end = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+		while (cancels.get() == 0 && System.nanoTime() < end) Thread.onSpinWait(); // like a driver blocking in a call, that ignores the interrupt
+	}
+
+	@Test
+	void testWithoutTimeout() throws Exception {
+		var guard = StatementGuard.guard(statement(), null);
+		try (guard) {
+			guard.check(System.nanoTime() + Duration.ofDays(1).toNanos());
+			assertEquals(0, cancels.get()); // no deadline
+			Thread.currentThread().interrupt();
+			awaitInterruptedCancel();
+		} finally {
+			Thread.interrupted();
+		}
+		assertEquals(0, timeouts.get());
+		assertEquals(1, cancels.get()); // untimed statements are still cancelled on interrupt
+	}
+
+	@Test
+	void testDeadline() throws Exception {
+		var guard = StatementGuard.guard(statement(), Duration.ofMillis(100));
+		try (guard) {
+			assertEquals(1, timeouts.get()); // rounded up to full seconds
+			awaitCancel();
+		}
+		assertEquals(1, cancels.get());
+	}
+
+	@Test
+	void testInterrupt() throws Exception {
+		var guard = StatementGuard.guard(statement(), Duration.ofMinutes(1));
+		try (guard) {
+			Thread.currentThread().interrupt();
+			awaitInterruptedCancel();
+		} finally {
+			Thread.interrupted();
+		}
+		assertEquals(1, cancels.get());
+		guard.check(System.nanoTime());
+		assertEquals(1, cancels.get()); // cancelled once only
+	}
+
+	@Test
+	void testNoCancelAfterClose() throws Exception {
+		var guard = StatementGuard.guard(statement(), Duration.ofMinutes(1)); // the deadline cannot pass before close()
+		guard.close();
+		guard.check(System.nanoTime() + Duration.ofHours(1).toNanos()); // past the deadline, but closed
+		assertEquals(0, cancels.get());
+	}
+
+	@Test
+	void testIdleWatchdog() throws Exception {
+		var guard = StatementGuard.guard(statement(), null);
+		try (guard) {
+			assertTrue(StatementGuard.polling());
+		}
+		for (int i = 0; i < 100 && StatementGuard.polling(); i++) Thread.sleep(20);
+		assertFalse(StatementGuard.polling()); // parked, as no statement is running
+	}
+}
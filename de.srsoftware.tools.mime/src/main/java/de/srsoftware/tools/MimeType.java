@@ -15,6 +15,7 @@ public class MimeType {
 	public static final String MIME_JPG          = "image/jpeg";
 	public static final String MIME_JSON         = "application/json";
 	public static final String MIME_LATEX        = "text/x-tex";
+	public static final String MIME_NDJSON       = "application/x-ndjson";
 	public static final String MIME_PDF          = "image/pdf";
 	public static final String MIME_PNG          = "image/png";
 	public static final String MIME_SVG          = "image/svg";
@@ -43,6 +44,7 @@ public class MimeType {
 				case "gif" -> MIME_GIF;
 				case "jpg", "jpeg" -> MIME_JPG;
 				case "json" -> MIME_JSON;
+				case "ndjson" -> MIME_NDJSON;
 				case "htm", "html" -> MIME_HTML;
 				case "pdf" -> MIME_PDF;
 				case "png" -> MIME_PNG;
@@ -1,4 +1,5 @@
 rootProject.name = "de.srsoftware.tools"
+include("de.srsoftware.tools.benchmark")
 include("de.srsoftware.tools.container")
 include("de.srsoftware.tools.http")
 include("de.srsoftware.tools.jdbc")